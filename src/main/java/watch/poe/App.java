@@ -9,6 +9,7 @@ import poe.Item.Item;
 import poe.Item.Parser.ItemParser;
 import poe.Item.Parser.Price;
 import poe.Interval.IntervalManager;
+import poe.Mock.MockApiServer;
 import poe.League.LeagueManager;
 import poe.Relation.Indexer;
 import poe.Relation.RelationResources;
@@ -16,6 +17,7 @@ import poe.Statistics.StatisticsManager;
 import poe.Price.PriceManager;
 import poe.Statistics.StatType;
 import poe.Utility.Utility;
+import poe.Worker.ReplaySource;
 import poe.Worker.WorkerManager;
 
 import java.io.*;
@@ -31,6 +33,8 @@ public class App {
     private IntervalManager im;
     private WorkerManager wm;
     private PriceManager pm;
+    private ItemParser ip;
+    private MockApiServer mock;
     private Database db;
     private Indexer ix;
     private Config cnf;
@@ -99,6 +103,10 @@ public class App {
             sm.upload();
         }
 
+        if (mock != null) {
+            mock.stop();
+        }
+
         if (db != null) {
             db.disconnect();
         }
@@ -124,6 +132,15 @@ public class App {
         sm = new StatisticsManager(db);
         sm.addValue(StatType.APP_STARTUP, null);
 
+        // Start the mock API server before anything tries to reach the API
+        if (cnf.getBoolean("mock.enable")) {
+            mock = new MockApiServer(cnf);
+            if (!mock.start()) {
+                logger.error("Could not start mock API server");
+                return false;
+            }
+        }
+
         // Init league manager
         LeagueManager lm = new LeagueManager(db, cnf);
         if (!lm.cycle()) {
@@ -148,7 +165,7 @@ public class App {
         Item.setRelationResources(rr);
         Price.setRelationResources(rr);
 
-        ItemParser ip = new ItemParser(lm, ix, cnf, sm, db);
+        ip = new ItemParser(lm, ix, cnf, sm, db);
         if (!ip.init()) {
             logger.error("Could not initialize item parser");
             return false;
@@ -223,6 +240,7 @@ public class App {
                 + "    exit - exit the script safely\n"
                 + "    worker - manage workers\n"
                 + "    acc - account manager commands\n"
+                + "    replay <path> - parse recorded replies from a segment or directory\n"
                 + "    about - show about page\n";
         System.out.println(helpString);
 
@@ -251,6 +269,10 @@ public class App {
                         commandAbout();
                         break;
 
+                    case "replay":
+                        commandReplay(userInput);
+                        break;
+
                     case "calculateAll":
                         pm.resetCycleStamp();
                         logger.info("Cycle timestamp reset");
@@ -296,6 +318,21 @@ public class App {
         }
     }
 
+    /**
+     * Feeds recorded replies through the item parser
+     *
+     * @param userInput Input string
+     */
+    private void commandReplay(String[] userInput) {
+        if (userInput.length < 2) {
+            System.out.println("[INFO] Usage: 'replay <path>' - path to a segment or a directory of segments");
+            return;
+        }
+
+        System.out.println("[INFO] Replaying " + userInput[1] + "..");
+        new ReplaySource(ip).replay(userInput[1]);
+    }
+
     /**
      * Prints about page
      */
@@ -3,8 +3,10 @@ package poe.Database.Modules;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import poe.Database.Database;
+import poe.Item.Parser.DbItemReference;
 
 import java.sql.*;
+import java.util.List;
 import java.util.Set;
 
 public class Flag {
@@ -41,4 +43,39 @@ public class Flag {
             return false;
         }
     }
+
+    /**
+     * Same as resetStashReferences, but only for single listings that have been removed from their stashes
+     *
+     * @param list Removed listings
+     * @return True on success
+     */
+    public boolean resetItemReferences(List<DbItemReference> list) {
+        String query =  "update league_entries " +
+                        "set stash_crc = NULL " +
+                        "where stash_crc = ? and item_crc = ? and id_d = ?; ";
+        try {
+            if (database.connection.isClosed()) {
+                logger.error("Database connection was closed");
+                return false;
+            }
+
+            try (PreparedStatement statement = database.connection.prepareStatement(query)) {
+                for (DbItemReference reference : list) {
+                    statement.setLong(1, reference.stash_crc);
+                    statement.setLong(2, reference.item_crc);
+                    statement.setInt(3, reference.id_d);
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+            }
+
+            database.connection.commit();
+            return true;
+        } catch (SQLException ex) {
+            logger.error(ex.getMessage(), ex);
+            return false;
+        }
+    }
 }
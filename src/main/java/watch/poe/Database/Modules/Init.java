@@ -3,6 +3,7 @@ package poe.Database.Modules;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import poe.Database.Database;
+import poe.Item.ItemKey;
 import poe.Item.Key;
 import poe.League.League;
 
@@ -62,7 +63,7 @@ public class Init {
      * @param keyToId Empty map that will contain item Key - item ID relations
      * @return True on success
      */
-    public boolean getItemData(Map<Key, Integer> keyToId, Set<Integer> reindexSet) {
+    public boolean getItemData(Map<ItemKey, Integer> keyToId, Set<Integer> reindexSet) {
         String query = "SELECT * FROM data_item_data; ";
 
         logger.info("Getting item data from database");
@@ -81,7 +82,7 @@ public class Init {
                 ResultSet resultSet = statement.executeQuery(query);
 
                 while (resultSet.next()) {
-                    keyToId.put(new Key(resultSet), resultSet.getInt("id"));
+                    keyToId.put(new ItemKey(new Key(resultSet)), resultSet.getInt("id"));
 
                     // If entry was marked to be reindexed
                     if (resultSet.getInt("reindex") == 1) {
@@ -3,9 +3,9 @@ package poe.Item.Branches;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import poe.Item.Category.GroupEnum;
-import poe.Item.Deserializers.ApiItem;
 import poe.Item.Deserializers.Influences;
 import poe.Item.Item;
+import poe.Item.ItemContext;
 
 public class CraftingBaseBranch extends Item {
     private static final Logger logger = LoggerFactory.getLogger(CraftingBaseBranch.class);
@@ -13,10 +13,10 @@ public class CraftingBaseBranch extends Item {
     /**
      * Default constructor
      *
-     * @param apiItem Item as it appears in the stash api
+     * @param context Context of the item as it appears in the stash api
      */
-    public CraftingBaseBranch(ApiItem apiItem) {
-        super(apiItem);
+    public CraftingBaseBranch(ItemContext context) {
+        super(context);
     }
 
     /**
@@ -3,11 +3,11 @@ package poe.Item.Branches;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import poe.Item.Category.GroupEnum;
-import poe.Item.Deserializers.ApiItem;
 import poe.Item.Deserializers.Property;
 import poe.Item.Deserializers.Socket;
 import poe.Item.Category.CategoryEnum;
 import poe.Item.Item;
+import poe.Item.ItemContext;
 import poe.Item.MapIconParser;
 import poe.Item.VariantEnum;
 
@@ -17,10 +17,10 @@ public class DefaultBranch extends Item {
     /**
      * Default constructor
      *
-     * @param apiItem Item as it appears in the stash api
+     * @param context Context of the item as it appears in the stash api
      */
-    public DefaultBranch(ApiItem apiItem) {
-        super(apiItem);
+    public DefaultBranch(ItemContext context) {
+        super(context);
     }
 
     /**
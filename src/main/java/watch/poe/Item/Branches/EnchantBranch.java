@@ -2,8 +2,8 @@ package poe.Item.Branches;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import poe.Item.Deserializers.ApiItem;
 import poe.Item.Item;
+import poe.Item.ItemContext;
 
 public class EnchantBranch extends Item {
     private static final Logger logger = LoggerFactory.getLogger(EnchantBranch.class);
@@ -11,10 +11,10 @@ public class EnchantBranch extends Item {
     /**
      * Default constructor
      *
-     * @param apiItem Item as it appears in the stash api
+     * @param context Context of the item as it appears in the stash api
      */
-    public EnchantBranch(ApiItem apiItem) {
-        super(apiItem);
+    public EnchantBranch(ItemContext context) {
+        super(context);
     }
 
     /**
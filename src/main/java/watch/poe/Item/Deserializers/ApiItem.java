@@ -1,13 +1,17 @@
 package poe.Item.Deserializers;
 
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Base item object
  */
+@JsonAdapter(ApiItem.AdapterFactory.class)
 public class ApiItem {
     private boolean identified;
     private int ilvl, frameType;
@@ -16,6 +20,7 @@ public class ApiItem {
     private Integer stackSize;
     private String prophecyText;
 
+    // Only whether any race reward field was present is of interest, the reader stores true
     @SerializedName(value = "raceReward", alternate = {"seaRaceReward", "cisRaceReward", "thRaceReward", "RaceReward"})
     private Object raceReward;
 
@@ -124,4 +129,106 @@ public class ApiItem {
                 || influences.hunter != null && influences.hunter
                 || influences.warlord != null && influences.warlord);
     }
+
+    /**
+     * Decodes only the fields listed above. Everything else (flavour text, descriptions, requirements, socketed
+     * items, etc) is skipped token by token without being materialized.
+     */
+    static class AdapterFactory extends StreamingReadFactory<ApiItem> {
+        AdapterFactory() {
+            super(ApiItem.class);
+        }
+
+        @Override
+        ApiItem read(JsonReader in) throws IOException {
+            ApiItem item = new ApiItem();
+            Boolean bool;
+            Integer integer;
+
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "identified":
+                        bool = JsonHelper.nextBoolean(in);
+                        item.identified = bool != null && bool;
+                        break;
+                    case "ilvl":
+                        integer = JsonHelper.nextInteger(in);
+                        item.ilvl = integer == null ? 0 : integer;
+                        break;
+                    case "frameType":
+                        integer = JsonHelper.nextInteger(in);
+                        item.frameType = integer == null ? 0 : integer;
+                        break;
+                    case "corrupted":
+                        item.corrupted = JsonHelper.nextBoolean(in);
+                        break;
+                    case "synthesised":
+                        item.synthesised = JsonHelper.nextBoolean(in);
+                        break;
+                    case "icon":
+                        item.icon = JsonHelper.nextPooledString(in);
+                        break;
+                    case "league":
+                        item.league = JsonHelper.nextPooledString(in);
+                        break;
+                    case "id":
+                        item.id = JsonHelper.nextString(in);
+                        break;
+                    case "name":
+                        item.name = JsonHelper.nextPooledString(in);
+                        break;
+                    case "typeLine":
+                        item.typeLine = JsonHelper.nextPooledString(in);
+                        break;
+                    case "note":
+                        item.note = JsonHelper.nextString(in);
+                        break;
+                    case "stackSize":
+                        item.stackSize = JsonHelper.nextInteger(in);
+                        break;
+                    case "prophecyText":
+                        item.prophecyText = JsonHelper.nextString(in);
+                        break;
+                    case "raceReward":
+                    case "seaRaceReward":
+                    case "cisRaceReward":
+                    case "thRaceReward":
+                    case "RaceReward":
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            in.skipValue();
+                            item.raceReward = true;
+                        }
+                        break;
+                    case "influences":
+                        item.influences = Influences.reader.readNullable(in);
+                        break;
+                    case "extended":
+                        item.extended = Extended.reader.readNullable(in);
+                        break;
+                    case "properties":
+                        item.properties = JsonHelper.nextList(in, Property.reader::readNullable);
+                        break;
+                    case "sockets":
+                        item.sockets = JsonHelper.nextList(in, Socket.reader::readNullable);
+                        break;
+                    case "explicitMods":
+                        item.explicitMods = JsonHelper.nextList(in, JsonHelper::nextString);
+                        break;
+                    case "enchantMods":
+                        item.enchantMods = JsonHelper.nextList(in, JsonHelper::nextString);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+            return item;
+        }
+    }
 }
@@ -1,8 +1,15 @@
 package poe.Item.Deserializers;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
 import java.util.List;
 
+@JsonAdapter(Extended.AdapterFactory.class)
 public class Extended {
+    static final AdapterFactory reader = new AdapterFactory();
+
     private String category;
     private List<String> subcategories;
 
@@ -13,4 +20,36 @@ public class Extended {
     public List<String> getSubcategories() {
         return subcategories;
     }
+
+    /**
+     * Decodes the category and subcategories, skips the rest (eg. prefixes, suffixes, base type)
+     */
+    static class AdapterFactory extends StreamingReadFactory<Extended> {
+        AdapterFactory() {
+            super(Extended.class);
+        }
+
+        @Override
+        Extended read(JsonReader in) throws IOException {
+            Extended extended = new Extended();
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "category":
+                        extended.category = JsonHelper.nextPooledString(in);
+                        break;
+                    case "subcategories":
+                        extended.subcategories = JsonHelper.nextList(in, JsonHelper::nextPooledString);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+            return extended;
+        }
+    }
 }
@@ -1,10 +1,59 @@
 package poe.Item.Deserializers;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+@JsonAdapter(Influences.AdapterFactory.class)
 public class Influences {
+    static final AdapterFactory reader = new AdapterFactory();
+
     public Boolean shaper;
     public Boolean elder;
     public Boolean crusader;
     public Boolean redeemer;
     public Boolean hunter;
     public Boolean warlord;
+
+    static class AdapterFactory extends StreamingReadFactory<Influences> {
+        AdapterFactory() {
+            super(Influences.class);
+        }
+
+        @Override
+        Influences read(JsonReader in) throws IOException {
+            Influences influences = new Influences();
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "shaper":
+                        influences.shaper = JsonHelper.nextBoolean(in);
+                        break;
+                    case "elder":
+                        influences.elder = JsonHelper.nextBoolean(in);
+                        break;
+                    case "crusader":
+                        influences.crusader = JsonHelper.nextBoolean(in);
+                        break;
+                    case "redeemer":
+                        influences.redeemer = JsonHelper.nextBoolean(in);
+                        break;
+                    case "hunter":
+                        influences.hunter = JsonHelper.nextBoolean(in);
+                        break;
+                    case "warlord":
+                        influences.warlord = JsonHelper.nextBoolean(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+            return influences;
+        }
+    }
 }
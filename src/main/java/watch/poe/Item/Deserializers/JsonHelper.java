@@ -0,0 +1,91 @@
+package poe.Item.Deserializers;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import poe.Utility.StringPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Null-safe reads shared by the hand-written type adapters. Values are coerced the same way Gson's own adapters
+ * coerce them (eg. numbers and booleans are accepted where a string is expected).
+ */
+final class JsonHelper {
+    private JsonHelper() {
+    }
+
+    /**
+     * Reads one element of a list
+     */
+    interface ElementReader<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    static String nextString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+
+        return in.nextString();
+    }
+
+    /**
+     * Reads a string and interns it. Only for values that repeat across items.
+     */
+    static String nextPooledString(JsonReader in) throws IOException {
+        return StringPool.intern(nextString(in));
+    }
+
+    static Boolean nextBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+
+        return in.nextBoolean();
+    }
+
+    static Integer nextInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        return in.nextInt();
+    }
+
+    /**
+     * Reads an array
+     *
+     * @param in     Reader positioned at the array
+     * @param reader Reads a single element
+     * @return List of elements or null if the value was null
+     */
+    static <T> List<T> nextList(JsonReader in, ElementReader<T> reader) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+
+        while (in.hasNext()) {
+            list.add(reader.read(in));
+        }
+
+        in.endArray();
+        return list;
+    }
+}
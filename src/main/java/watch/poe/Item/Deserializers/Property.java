@@ -1,11 +1,51 @@
 package poe.Item.Deserializers;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
 import java.util.List;
 
 /**
  * Property object
  */
+@JsonAdapter(Property.AdapterFactory.class)
 public class Property {
+    static final AdapterFactory reader = new AdapterFactory();
+
     public String name;
     public List<List<String>> values;
+
+    /**
+     * Decodes the name and values, skips the rest
+     */
+    static class AdapterFactory extends StreamingReadFactory<Property> {
+        AdapterFactory() {
+            super(Property.class);
+        }
+
+        @Override
+        Property read(JsonReader in) throws IOException {
+            Property property = new Property();
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name":
+                        property.name = JsonHelper.nextPooledString(in);
+                        break;
+                    case "values":
+                        // Pairs of [value, display mode]
+                        property.values = JsonHelper.nextList(in, i -> JsonHelper.nextList(i, JsonHelper::nextString));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+            return property;
+        }
+    }
 }
@@ -0,0 +1,227 @@
+package poe.Item.Deserializers;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Streaming alternative to deserializing the whole {@link Reply} at once. Reads the reply directly off the
+ * provided stream and hands out every stash as soon as it has been decoded, so only a single stash has to be
+ * kept in memory at a time.
+ * <p>
+ * Stash fields are read by hand. Once the league, public and accountName fields have been seen, the item filter
+ * decides whether the items are deserialized at all. Items of unwanted stashes are skipped token by token and only
+ * counted.
+ */
+public class ReplyReader {
+    private final Gson gson;
+    private final Predicate<Stash> itemFilter;
+
+    /**
+     * Default constructor
+     *
+     * @param gson       Gson instance used for the items
+     * @param itemFilter Returns false for stashes whose items should be skipped
+     */
+    public ReplyReader(Gson gson, Predicate<Stash> itemFilter) {
+        this.gson = gson;
+        this.itemFilter = itemFilter;
+    }
+
+    /**
+     * Reads a complete stash api reply from the stream
+     *
+     * @param stream          Stream containing the reply JSON
+     * @param changeIdHandler Called with the reply's next change id. Return false to stop reading
+     * @param stashHandler    Called with every decoded stash. Return false to stop reading
+     * @return The reply's next change id or null if it was missing or reading was stopped
+     * @throws IOException On malformed JSON or stream errors
+     */
+    public String read(InputStream stream, Predicate<String> changeIdHandler, Predicate<Stash> stashHandler)
+            throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String changeId = null;
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "next_change_id":
+                    changeId = JsonHelper.nextString(reader);
+
+                    if (changeId != null && !changeIdHandler.test(changeId)) {
+                        return null;
+                    }
+
+                    break;
+
+                case "stashes":
+                    reader.beginArray();
+
+                    while (reader.hasNext()) {
+                        Stash stash = readStash(reader);
+
+                        if (stash != null && !stashHandler.test(stash)) {
+                            return null;
+                        }
+                    }
+
+                    reader.endArray();
+                    break;
+
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+
+        reader.endObject();
+
+        return changeId;
+    }
+
+    /**
+     * Reads a complete reply into memory, with the items of unwanted stashes skipped
+     *
+     * @param stream Stream containing the reply JSON
+     * @return The reply
+     * @throws IOException On malformed JSON or stream errors
+     */
+    public Reply readReply(InputStream stream) throws IOException {
+        Reply reply = new Reply();
+        reply.stashes = new ArrayList<>();
+        reply.next_change_id = read(stream, changeId -> true, reply.stashes::add);
+        return reply;
+    }
+
+    /**
+     * Reads a single stash object
+     *
+     * @param reader Reader positioned at the stash
+     * @return The stash or null if the value was null
+     * @throws IOException On malformed JSON or stream errors
+     */
+    private Stash readStash(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        Stash stash = new Stash();
+        boolean hasLeague = false, hasPublic = false, hasAccountName = false;
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    stash.id = JsonHelper.nextString(reader);
+                    break;
+
+                case "public":
+                    hasPublic = true;
+                    if (reader.peek() == JsonToken.BOOLEAN) {
+                        stash.isPublic = reader.nextBoolean();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+
+                case "accountName":
+                    hasAccountName = true;
+                    stash.accountName = JsonHelper.nextPooledString(reader);
+                    break;
+
+                case "lastCharacterName":
+                    stash.lastCharacterName = JsonHelper.nextPooledString(reader);
+                    break;
+
+                case "stash":
+                    stash.stashName = JsonHelper.nextString(reader);
+                    break;
+
+                case "stashType":
+                    stash.stashType = JsonHelper.nextPooledString(reader);
+                    break;
+
+                case "league":
+                    hasLeague = true;
+                    stash.league = JsonHelper.nextPooledString(reader);
+                    break;
+
+                case "items":
+                    // The filter can only be trusted once all the fields it looks at have been read
+                    if (hasLeague && hasPublic && hasAccountName && !itemFilter.test(stash)) {
+                        stash.items = null;
+                        stash.skippedItems = skipArray(reader);
+                    } else {
+                        stash.items = readItems(reader);
+                    }
+                    break;
+
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+
+        reader.endObject();
+
+        // A stash without an items field has no items
+        if (stash.items == null && stash.skippedItems == 0) {
+            stash.items = new ArrayList<>();
+        }
+
+        return stash;
+    }
+
+    private List<ApiItem> readItems(JsonReader reader) throws IOException {
+        List<ApiItem> items = new ArrayList<>();
+
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return items;
+        }
+
+        reader.beginArray();
+
+        while (reader.hasNext()) {
+            ApiItem item = gson.fromJson(reader, ApiItem.class);
+            if (item != null) items.add(item);
+        }
+
+        reader.endArray();
+        return items;
+    }
+
+    /**
+     * Skips over an array without deserializing its elements
+     *
+     * @return Number of elements skipped
+     */
+    private static int skipArray(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+
+        int count = 0;
+        reader.beginArray();
+
+        while (reader.hasNext()) {
+            reader.skipValue();
+            count++;
+        }
+
+        reader.endArray();
+        return count;
+    }
+}
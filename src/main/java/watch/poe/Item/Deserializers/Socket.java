@@ -1,9 +1,50 @@
 package poe.Item.Deserializers;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
 /**
  * Socket object
  */
+@JsonAdapter(Socket.AdapterFactory.class)
 public class Socket {
+    static final AdapterFactory reader = new AdapterFactory();
+
     public int group;
     public String attr;
+
+    /**
+     * Decodes the group and attribute, skips the rest
+     */
+    static class AdapterFactory extends StreamingReadFactory<Socket> {
+        AdapterFactory() {
+            super(Socket.class);
+        }
+
+        @Override
+        Socket read(JsonReader in) throws IOException {
+            Socket socket = new Socket();
+            in.beginObject();
+
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "group":
+                        Integer group = JsonHelper.nextInteger(in);
+                        socket.group = group == null ? 0 : group;
+                        break;
+                    case "attr":
+                        socket.attr = JsonHelper.nextPooledString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+
+            in.endObject();
+            return socket;
+        }
+    }
 }
@@ -16,4 +16,14 @@ public class Stash {
 
     @SerializedName("public")
     public boolean isPublic;
+
+    // Number of items skipped by the decoder without being deserialized, in which case items is null
+    public transient int skippedItems;
+
+    /**
+     * @return Number of items in the stash, including skipped ones
+     */
+    public int getItemCount() {
+        return items == null ? skippedItems : items.size();
+    }
 }
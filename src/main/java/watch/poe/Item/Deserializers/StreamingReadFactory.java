@@ -0,0 +1,71 @@
+package poe.Item.Deserializers;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Registers a hand-written streaming reader for a type while leaving writing to Gson's regular reflective adapter.
+ * Meant to be referenced from {@link com.google.gson.annotations.JsonAdapter}.
+ *
+ * @param <T> Type that is read
+ */
+abstract class StreamingReadFactory<T> implements TypeAdapterFactory {
+    private final Class<T> type;
+
+    StreamingReadFactory(Class<T> type) {
+        this.type = type;
+    }
+
+    /**
+     * Reads a value that is known not to be null
+     *
+     * @param in Reader positioned at the value
+     * @return Decoded value
+     */
+    abstract T read(JsonReader in) throws IOException;
+
+    /**
+     * Reads a value that may be null
+     *
+     * @param in Reader positioned at the value
+     * @return Decoded value or null
+     */
+    final T readNullable(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        return read(in);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R> TypeAdapter<R> create(Gson gson, TypeToken<R> token) {
+        if (token.getRawType() != type) {
+            return null;
+        }
+
+        // Skips past this factory, so writes go through the reflective adapter
+        TypeAdapter<T> delegate = (TypeAdapter<T>) gson.getDelegateAdapter(this, token);
+
+        return (TypeAdapter<R>) new TypeAdapter<T>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                delegate.write(out, value);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                return readNullable(in);
+            }
+        };
+    }
+}
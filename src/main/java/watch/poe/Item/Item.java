@@ -11,14 +11,18 @@ import poe.Relation.Indexer;
 import poe.Relation.RelationResources;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class Item {
     private static final Logger logger = LoggerFactory.getLogger(Item.class);
     protected static RelationResources relationResources;
     protected static Indexer indexer;
 
+    protected final ItemContext context;
     protected final ApiItem originalItem;
     protected final Key key;
+    private ItemKey itemKey;
 
     protected String icon;
     protected Integer stackSize, maxStackSize;
@@ -26,15 +30,32 @@ public abstract class Item {
     protected GroupEnum group;
     protected boolean discard, clearPrice;
 
+    // Classifications by their inputs. Only a few hundred combinations exist in practice
+    private static final int maxClassifications = 10000;
+    private static final ConcurrentHashMap<Classification, Classification> classifications = new ConcurrentHashMap<>();
+
+    // Set if the classification also depended on the item's name, which the memo key does not include
+    private boolean classifiedByName;
+
     /**
      * Default constructor
      */
     public Item(ApiItem original) {
-        this.originalItem = original;
-        this.key = new Key(original);
+        this(new ItemContext(original));
+    }
+
+    /**
+     * Creates a branch of an item, sharing whatever the item's other branches have already worked out
+     *
+     * @param context Context of the api item
+     */
+    public Item(ItemContext context) {
+        this.context = context;
+        this.originalItem = context.getApiItem();
+        this.key = context.newKey();
 
         // Needed for finding group
-        icon = formatIcon(originalItem.getIcon());
+        icon = context.getIcon();
 
         // Find the item's category and group (eg armour/belt/weapon etc)
         determineCategoryGroup();
@@ -123,39 +144,45 @@ public abstract class Item {
     }
 
     /**
-     * Given the category, gets first group
-     *
-     * @return api group
+     * Find item's category and group. The result only depends on a handful of repeating inputs, so it's looked up
+     * from previously classified items whenever possible.
      */
-    private String findApiGroup() {
-        List<String> subCategories = originalItem.getExtended().getSubcategories();
-
-        if (subCategories != null && subCategories.size() > 0) {
-            return subCategories.get(0).toLowerCase();
+    private void determineCategoryGroup() {
+        Classification inputs = new Classification(getClass(),
+                context.getIconDirectory(),
+                originalItem.getExtended().getCategory(),
+                context.getSubCategory(),
+                originalItem.getFrameType(),
+                originalItem.getProperties() == null);
+
+        Classification result = classifications.get(inputs);
+
+        if (result != null) {
+            category = result.category;
+            group = result.group;
+            discard = result.discard;
+            return;
         }
 
-        return null;
-    }
+        classify(inputs.iconDirectory.toLowerCase(), inputs.apiCategory,
+                inputs.subCategory == null ? null : inputs.subCategory.toLowerCase());
 
-    /**
-     * Find icon cdn category. For example, if the icon path is
-     * "http://web.poecdn.com/image/Art/2DItems/Armours/Helmets/HarbingerShards/Shard1.png"
-     * then the icon category is "HarbingerShards"
-     *
-     * @return Extracted category
-     */
-    private String findIconCategory() {
-        String[] splitItemType = originalItem.getIcon().split("/");
-        return splitItemType[splitItemType.length - 2].toLowerCase();
+        if (!classifiedByName && classifications.size() < maxClassifications) {
+            inputs.category = category;
+            inputs.group = group;
+            inputs.discard = discard;
+            classifications.putIfAbsent(inputs, inputs);
+        }
     }
 
     /**
-     * Find item's category and group
+     * Find item's category and group from scratch
+     *
+     * @param iconCategory Lowercase icon directory
+     * @param apiCategory  Category of the item's extended field
+     * @param apiGroup     Lowercase first subcategory of the item's extended field
      */
-    private void determineCategoryGroup() {
-        String iconCategory = findIconCategory();
-        String apiCategory = originalItem.getExtended().getCategory();
-        String apiGroup = findApiGroup();
+    private void classify(String iconCategory, String apiCategory, String apiGroup) {
 
         if (apiCategory == null) {
             discard = true;
@@ -218,6 +245,10 @@ public abstract class Item {
         if (apiCategory.equals("currency")) {
             category = CategoryEnum.currency;
 
+            // Anything past the piece check may depend on the name
+            classifiedByName = !iconCategory.equals("currency") && !iconCategory.equals("essence")
+                    && !"piece".equals(apiGroup);
+
             if (iconCategory.equals("currency")) {
                 group = GroupEnum.currency;
             } else if (iconCategory.equals("essence")) {
@@ -361,6 +392,51 @@ public abstract class Item {
     }
 
 
+    /**
+     * Inputs of a classification, along with its result once classified. Equality only considers the inputs.
+     */
+    private static final class Classification {
+        private final Class<?> branch;
+        private final String iconDirectory, apiCategory, subCategory;
+        private final int frameType;
+        private final boolean noProperties;
+        private final int hash;
+
+        private CategoryEnum category;
+        private GroupEnum group;
+        private boolean discard;
+
+        private Classification(Class<?> branch, String iconDirectory, String apiCategory, String subCategory,
+                               int frameType, boolean noProperties) {
+            this.branch = branch;
+            this.iconDirectory = iconDirectory;
+            this.apiCategory = apiCategory;
+            this.subCategory = subCategory;
+            this.frameType = frameType;
+            this.noProperties = noProperties;
+            this.hash = Objects.hash(branch, iconDirectory, apiCategory, subCategory, frameType, noProperties);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Classification that = (Classification) o;
+            return hash == that.hash &&
+                    frameType == that.frameType &&
+                    noProperties == that.noProperties &&
+                    branch == that.branch &&
+                    iconDirectory.equals(that.iconDirectory) &&
+                    Objects.equals(apiCategory, that.apiCategory) &&
+                    Objects.equals(subCategory, that.subCategory);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     @Override
     public String toString() {
         return key.toString() + "|icon:" + originalItem.getIcon();
@@ -399,6 +475,17 @@ public abstract class Item {
         return key;
     }
 
+    /**
+     * @return Compact snapshot of the key, taken on first call. Only call once the item has been fully parsed
+     */
+    public ItemKey getItemKey() {
+        if (itemKey == null) {
+            itemKey = new ItemKey(key);
+        }
+
+        return itemKey;
+    }
+
     public Integer getMaxStackSize() {
         return maxStackSize;
     }
@@ -0,0 +1,89 @@
+package poe.Item;
+
+import poe.Item.Deserializers.ApiItem;
+
+import java.util.List;
+
+/**
+ * Everything about an api item that's the same for all of its branches. Values are computed the first time a
+ * branch asks for them and shared from then on.
+ */
+public class ItemContext {
+    private final ApiItem apiItem;
+
+    private Key key;
+    private String icon, iconDirectory, subCategory;
+    private boolean subCategoryFound;
+
+    /**
+     * Default constructor
+     *
+     * @param apiItem Item as it appears in the stash api
+     */
+    public ItemContext(ApiItem apiItem) {
+        this.apiItem = apiItem;
+    }
+
+    public ApiItem getApiItem() {
+        return apiItem;
+    }
+
+    /**
+     * @return New copy of the item's initial key, as branches modify their keys
+     */
+    Key newKey() {
+        if (key == null) {
+            key = new Key(apiItem);
+        }
+
+        return new Key(key);
+    }
+
+    /**
+     * @return Formatted icon url
+     */
+    String getIcon() {
+        if (icon == null) {
+            icon = Item.formatIcon(apiItem.getIcon());
+        }
+
+        return icon;
+    }
+
+    /**
+     * Find icon cdn directory. For example, if the icon path is
+     * "http://web.poecdn.com/image/Art/2DItems/Armours/Helmets/HarbingerShards/Shard1.png"
+     * then the icon directory is "HarbingerShards"
+     *
+     * @return Extracted directory, not lowercased
+     */
+    String getIconDirectory() {
+        if (iconDirectory != null) {
+            return iconDirectory;
+        }
+
+        String icon = apiItem.getIcon();
+
+        // Trailing slashes are ignored
+        int end = icon.length();
+        while (end > 0 && icon.charAt(end - 1) == '/') end--;
+
+        int last = icon.lastIndexOf('/', end - 1);
+        iconDirectory = last < 0 ? "" : icon.substring(icon.lastIndexOf('/', last - 1) + 1, last);
+
+        return iconDirectory;
+    }
+
+    /**
+     * @return First subcategory of the item's extended field, not lowercased, or null if there is none
+     */
+    String getSubCategory() {
+        if (!subCategoryFound) {
+            List<String> subCategories = apiItem.getExtended().getSubcategories();
+            subCategory = subCategories == null || subCategories.isEmpty() ? null : subCategories.get(0);
+            subCategoryFound = true;
+        }
+
+        return subCategory;
+    }
+}
@@ -0,0 +1,141 @@
+package poe.Item;
+
+import java.util.Objects;
+
+/**
+ * Compact, immutable snapshot of a {@link Key}, used where keys are stored and looked up in bulk (eg. the indexer's
+ * ~100k item definitions). Nullable numbers are kept as primitives with a sentinel and nullable flags are packed
+ * into a single int, so there is nothing to unbox or hash again on lookup.
+ * <p>
+ * A 64-bit fingerprint of all values is computed once. The hash code is folded from it and equals() compares it
+ * first, so lookups of differing keys are almost always rejected without comparing the name and type strings.
+ */
+public final class ItemKey {
+    private static final int none = Integer.MIN_VALUE;
+
+    private final String name, type;
+    private final int frame, links, gemLevel, gemQuality, mapTier, mapSeries, baseItemLevel;
+    private final int enchantMin, enchantMax;
+    private final VariantEnum variation;
+    // Two bits per nullable boolean (0 = null, 1 = false, 2 = true) and a bit each for null enchant bounds
+    private final int flags;
+
+    private final long fingerprint;
+    private final int hash;
+
+    /**
+     * Takes a snapshot of a key. Later changes to the key are not reflected.
+     *
+     * @param key Key to copy
+     */
+    public ItemKey(Key key) {
+        name = key.name;
+        type = key.type;
+        frame = key.frame;
+        links = encode(key.links);
+        gemLevel = encode(key.gemLevel);
+        gemQuality = encode(key.gemQuality);
+        mapTier = encode(key.mapTier);
+        mapSeries = encode(key.mapSeries);
+        baseItemLevel = encode(key.baseItemLevel);
+        enchantMin = key.enchantMin == null ? 0 : Float.floatToIntBits(key.enchantMin);
+        enchantMax = key.enchantMax == null ? 0 : Float.floatToIntBits(key.enchantMax);
+        variation = key.variation;
+
+        flags = encode(key.gemCorrupted)
+                | encode(key.shaper) << 2
+                | encode(key.elder) << 4
+                | encode(key.crusader) << 6
+                | encode(key.redeemer) << 8
+                | encode(key.hunter) << 10
+                | encode(key.warlord) << 12
+                | (key.enchantMin == null ? 1 << 14 : 0)
+                | (key.enchantMax == null ? 1 << 15 : 0);
+
+        long h = mix(0x6a09e667f3bcc909L, fingerprint(name));
+        h = mix(h, fingerprint(type));
+        h = mix(h, frame);
+        h = mix(h, links);
+        h = mix(h, gemLevel);
+        h = mix(h, gemQuality);
+        h = mix(h, mapTier);
+        h = mix(h, mapSeries);
+        h = mix(h, baseItemLevel);
+        h = mix(h, enchantMin);
+        h = mix(h, enchantMax);
+        // By constant name rather than ordinal, so the fingerprint doesn't depend on the order of the variants
+        h = mix(h, variation == null ? -1 : fingerprint(variation.name()));
+        h = mix(h, flags);
+
+        fingerprint = h;
+        hash = (int) (h ^ h >>> 32);
+    }
+
+    private static int encode(Integer value) {
+        return value == null ? none : value;
+    }
+
+    private static int encode(Boolean value) {
+        return value == null ? 0 : value ? 2 : 1;
+    }
+
+    private static long mix(long h, long value) {
+        h = (h ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ h >>> 32;
+    }
+
+    /**
+     * 64-bit FNV-1a of a string's chars, as String.hashCode is only 32 bits
+     */
+    private static long fingerprint(String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+
+        return h;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFrame() {
+        return frame;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ItemKey key = (ItemKey) o;
+        return fingerprint == key.fingerprint &&
+                frame == key.frame &&
+                links == key.links &&
+                gemLevel == key.gemLevel &&
+                gemQuality == key.gemQuality &&
+                mapTier == key.mapTier &&
+                mapSeries == key.mapSeries &&
+                baseItemLevel == key.baseItemLevel &&
+                enchantMin == key.enchantMin &&
+                enchantMax == key.enchantMax &&
+                variation == key.variation &&
+                flags == key.flags &&
+                Objects.equals(name, key.name) &&
+                Objects.equals(type, key.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "name:" + name + "|type:" + type + "|frame:" + frame + "|fingerprint:" + Long.toHexString(fingerprint);
+    }
+}
@@ -1,6 +1,7 @@
 package poe.Item;
 
 import poe.Item.Deserializers.ApiItem;
+import poe.Utility.StringPool;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -30,10 +31,37 @@ public class Key {
 
         // Remove formatting strings from name
         if (name.contains(">")) {
-            name = name.substring(name.lastIndexOf(">") + 1);
+            name = StringPool.intern(name.substring(name.lastIndexOf(">") + 1));
         }
     }
 
+    /**
+     * Copy constructor
+     *
+     * @param other Key to copy
+     */
+    public Key(Key other) {
+        name = other.name;
+        type = other.type;
+        frame = other.frame;
+        links = other.links;
+        gemLevel = other.gemLevel;
+        gemQuality = other.gemQuality;
+        mapTier = other.mapTier;
+        mapSeries = other.mapSeries;
+        baseItemLevel = other.baseItemLevel;
+        enchantMin = other.enchantMin;
+        enchantMax = other.enchantMax;
+        gemCorrupted = other.gemCorrupted;
+        shaper = other.shaper;
+        elder = other.elder;
+        crusader = other.crusader;
+        redeemer = other.redeemer;
+        hunter = other.hunter;
+        warlord = other.warlord;
+        variation = other.variation;
+    }
+
     /**
      * Database constructor
      *
@@ -41,9 +69,10 @@ public class Key {
      * @throws SQLException
      */
     public Key(ResultSet resultSet) throws SQLException {
-        name = resultSet.getString("name");
+        // Share instances with keys created from the api
+        name = StringPool.intern(resultSet.getString("name"));
 
-        type = resultSet.getString("type");
+        type = StringPool.intern(resultSet.getString("type"));
         if (resultSet.wasNull()) type = null;
 
         variation = VariantEnum.findByVariation(name, resultSet.getString("var"));
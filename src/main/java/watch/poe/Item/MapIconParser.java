@@ -6,19 +6,62 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import poe.League.LeagueManager;
 
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MapIconParser {
   private static final Logger log = LoggerFactory.getLogger(LeagueManager.class);
   private static final Gson gson = new Gson();
 
+  // Series by icon url. Only a few thousand distinct map icons exist, the cache starts over if it fills up anyway
+  private static final int maxCacheSize = 20000;
+  private static final Map<String, Integer> seriesCache = new ConcurrentHashMap<>();
+
+  // Decoded icon parameters and unescaped "f" values, reused by each thread
+  private static final ThreadLocal<byte[][]> buffers =
+      ThreadLocal.withInitial(() -> new byte[][]{new byte[256], new byte[128]});
+
+  private static final int[] base64Values = new int[128];
+
+  static {
+    Arrays.fill(base64Values, -1);
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    for (int i = 0; i < alphabet.length(); i++) {
+      base64Values[alphabet.charAt(i)] = i;
+    }
+  }
+
+  static final int unknown = Integer.MIN_VALUE;
+
   public static Integer parseSeries(String icon) {
     if (icon == null) {
       return null;
     }
 
+    Integer series = seriesCache.get(icon);
+    if (series != null) {
+      return series;
+    }
+
+    // Decode straight from the url. Anything out of the ordinary goes the long way, which also reports the errors
+    int fast = decodeSeries(icon);
+    series = fast == unknown ? parseSeriesSlow(icon) : Integer.valueOf(fast);
+
+    if (series != null) {
+      if (seriesCache.size() >= maxCacheSize) {
+        seriesCache.clear();
+      }
+
+      seriesCache.put(icon, series);
+    }
+
+    return series;
+  }
+
+  static Integer parseSeriesSlow(String icon) {
     // [28,14,{"f":"2DItems\/Maps\/Atlas2Maps\/New\/Museum","w":1,"h":1,"scale":true,"mn":7,"mt":3}]
     Map<String, String> params;
     try {
@@ -32,6 +75,250 @@ public class MapIconParser {
     return parseMapSeries(params);
   }
 
+  /**
+   * Finds the series by decoding the icon's base64 segment into a reused buffer and scanning the parameter JSON in
+   * place, without creating any strings
+   *
+   * @param icon Icon url
+   * @return Series or {@link #unknown} if the icon is not in the usual format
+   */
+  static int decodeSeries(String icon) {
+    // The base64 segment is the third last one
+    int end = icon.length();
+    while (end > 0 && icon.charAt(end - 1) == '/') end--;
+
+    int slash = icon.lastIndexOf('/', end - 1);
+    if (slash < 0) return unknown;
+    slash = icon.lastIndexOf('/', slash - 1);
+    if (slash < 0) return unknown;
+    int start = icon.lastIndexOf('/', slash - 1) + 1;
+
+    byte[][] buffer = buffers.get();
+    int length = decodeBase64(icon, start, slash, buffer);
+    if (length < 0) return unknown;
+    byte[] json = buffer[0];
+
+    // Parameters are the first object
+    int pos = indexOf(json, length, (byte) '{', 0);
+    int close = indexOf(json, length, (byte) '}', 0);
+    if (pos < 0 || close < pos) return unknown;
+
+    int fLength = -1, mn = unknown;
+    // Start and end of each key seen so far. Gson rejects repeated keys, so they have to be rejected here too
+    int[] keys = new int[32];
+    int keyCount = 0;
+    pos++;
+
+    while (true) {
+      pos = skipSpace(json, close, pos);
+      if (pos >= close) break;
+
+      // Key
+      if (json[pos] != '"') return unknown;
+      int keyStart = pos + 1;
+      int keyEnd = indexOf(json, close, (byte) '"', keyStart);
+      if (keyEnd < 0) return unknown;
+
+      // Escaped keys could spell an earlier key differently
+      if (indexOf(json, keyEnd, (byte) '\\', keyStart) >= 0) return unknown;
+      if (keyCount == keys.length) return unknown;
+      for (int i = 0; i < keyCount; i += 2) {
+        if (equals(json, keys[i], keys[i + 1], keyStart, keyEnd)) return unknown;
+      }
+      keys[keyCount++] = keyStart;
+      keys[keyCount++] = keyEnd;
+
+      pos = skipSpace(json, close, keyEnd + 1);
+      if (pos >= close || json[pos] != ':') return unknown;
+      pos = skipSpace(json, close, pos + 1);
+      if (pos >= close) return unknown;
+
+      boolean isF = keyEnd - keyStart == 1 && json[keyStart] == 'f';
+      boolean isMn = keyEnd - keyStart == 2 && json[keyStart] == 'm' && json[keyStart + 1] == 'n';
+
+      // Value
+      if (json[pos] == '"') {
+        int valueEnd = pos + 1;
+        int out = 0;
+
+        while (valueEnd < close && json[valueEnd] != '"') {
+          byte b = json[valueEnd];
+
+          // Only escaped slashes are expected
+          if (b == '\\') {
+            if (valueEnd + 1 >= close || json[valueEnd + 1] != '/') return unknown;
+            b = '/';
+            valueEnd++;
+          } else if (b < 0x20) {
+            return unknown;
+          }
+
+          if (isF) {
+            if (out == buffer[1].length) buffer[1] = Arrays.copyOf(buffer[1], out * 2);
+            buffer[1][out++] = b;
+          }
+
+          valueEnd++;
+        }
+
+        if (valueEnd >= close) return unknown;
+
+        if (isF) {
+          fLength = out;
+        } else if (isMn) {
+          mn = parseInt(json, pos + 1, valueEnd);
+          if (mn == unknown) return unknown;
+        }
+
+        pos = valueEnd + 1;
+      } else {
+        // Nested objects and arrays are left to the string based parser
+        if (json[pos] == '{' || json[pos] == '[') return unknown;
+
+        int valueEnd = pos;
+        while (valueEnd < close && json[valueEnd] != ',' && json[valueEnd] != ' ') valueEnd++;
+
+        if (isF) {
+          return unknown;
+        } else if (isMn) {
+          mn = parseInt(json, pos, valueEnd);
+          if (mn == unknown) return unknown;
+        }
+
+        pos = valueEnd;
+      }
+
+      pos = skipSpace(json, close, pos);
+      if (pos < close) {
+        if (json[pos] != ',') return unknown;
+        pos++;
+      }
+    }
+
+    if (fLength < 0) return unknown;
+
+    // Second last path segment of "f", with trailing slashes ignored
+    byte[] f = buffer[1];
+    int fEnd = fLength;
+    while (fEnd > 0 && f[fEnd - 1] == '/') fEnd--;
+
+    int segmentEnd = lastIndexOf(f, (byte) '/', fEnd - 1);
+    if (segmentEnd < 0) return unknown;
+    int segmentStart = lastIndexOf(f, (byte) '/', segmentEnd - 1) + 1;
+
+    if (equalsIgnoreCase(f, segmentStart, segmentEnd, "maps")) {
+      return 0;
+    } else if (equalsIgnoreCase(f, segmentStart, segmentEnd, "act4maps")) {
+      return 1;
+    } else if (equalsIgnoreCase(f, segmentStart, segmentEnd, "atlasmaps")) {
+      return 2;
+    } else if (equalsIgnoreCase(f, segmentStart, segmentEnd, "new") && mn != unknown) {
+      return mn + 2;
+    }
+
+    return unknown;
+  }
+
+  /**
+   * Decodes base64 into the first buffer, growing it if needed
+   *
+   * @return Number of bytes or -1 if the input is not valid base64
+   */
+  private static int decodeBase64(String src, int start, int end, byte[][] buffer) {
+    // Padding is optional
+    while (end > start && src.charAt(end - 1) == '=') end--;
+    if ((end - start) % 4 == 1) return -1;
+
+    int length = (end - start) * 3 / 4;
+    if (buffer[0].length < length) buffer[0] = new byte[Math.max(length, buffer[0].length * 2)];
+    byte[] out = buffer[0];
+
+    int bits = 0, count = 0, pos = 0;
+    for (int i = start; i < end; i++) {
+      char c = src.charAt(i);
+      int value = c < 128 ? base64Values[c] : -1;
+      if (value < 0) return -1;
+
+      bits = bits << 6 | value;
+      if (++count == 4) {
+        out[pos++] = (byte) (bits >> 16);
+        out[pos++] = (byte) (bits >> 8);
+        out[pos++] = (byte) bits;
+        bits = count = 0;
+      }
+    }
+
+    if (count == 3) {
+      out[pos++] = (byte) (bits >> 10);
+      out[pos++] = (byte) (bits >> 2);
+    } else if (count == 2) {
+      out[pos++] = (byte) (bits >> 4);
+    }
+
+    // Non-ascii content is left to the string based parser
+    for (int i = 0; i < pos; i++) {
+      if (out[i] < 0) return -1;
+    }
+
+    return pos;
+  }
+
+  private static boolean equals(byte[] bytes, int start, int end, int otherStart, int otherEnd) {
+    if (end - start != otherEnd - otherStart) return false;
+
+    for (int i = 0; i < end - start; i++) {
+      if (bytes[start + i] != bytes[otherStart + i]) return false;
+    }
+
+    return true;
+  }
+
+  private static int parseInt(byte[] bytes, int start, int end) {
+    boolean negative = start < end && bytes[start] == '-';
+    if (negative) start++;
+    if (start == end || end - start > 9) return unknown;
+
+    int value = 0;
+    for (int i = start; i < end; i++) {
+      if (bytes[i] < '0' || bytes[i] > '9') return unknown;
+      value = value * 10 + bytes[i] - '0';
+    }
+
+    return negative ? -value : value;
+  }
+
+  private static int skipSpace(byte[] bytes, int end, int pos) {
+    while (pos < end && (bytes[pos] == ' ' || bytes[pos] == '\n' || bytes[pos] == '\t' || bytes[pos] == '\r')) pos++;
+    return pos;
+  }
+
+  private static int indexOf(byte[] bytes, int end, byte b, int from) {
+    for (int i = from; i < end; i++) {
+      if (bytes[i] == b) return i;
+    }
+
+    return -1;
+  }
+
+  private static int lastIndexOf(byte[] bytes, byte b, int from) {
+    for (int i = from; i >= 0; i--) {
+      if (bytes[i] == b) return i;
+    }
+
+    return -1;
+  }
+
+  private static boolean equalsIgnoreCase(byte[] bytes, int start, int end, String lowercase) {
+    if (end - start != lowercase.length()) return false;
+
+    for (int i = start; i < end; i++) {
+      int c = bytes[i] >= 'A' && bytes[i] <= 'Z' ? bytes[i] + 32 : bytes[i];
+      if (c != lowercase.charAt(i - start)) return false;
+    }
+
+    return true;
+  }
+
   private static String extractBase64(String icon) {
     // https://web.poecdn.com/gen/image/WzI4LDE0LHsiZiI6IjJESXRlbXNcL01hcHNcL0F0bGFzMk1hcHNcL05ld1wvTXVzZXVtIiwidyI6MSwiaCI6MSwic2NhbGUiOnRydWUsIm1uIjo3LCJtdCI6M31d/fb4a9b4077/Item.png
     String[] tmp = icon.split("/");
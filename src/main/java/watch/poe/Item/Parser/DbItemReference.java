@@ -0,0 +1,15 @@
+package poe.Item.Parser;
+
+/**
+ * Identifies a listing of an item in a stash, without any of its data
+ */
+public class DbItemReference {
+    public final int id_d;
+    public final long stash_crc, item_crc;
+
+    DbItemReference(int id_d, long stash_crc, long item_crc) {
+        this.id_d = id_d;
+        this.stash_crc = stash_crc;
+        this.item_crc = item_crc;
+    }
+}
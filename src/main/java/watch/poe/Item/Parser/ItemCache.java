@@ -0,0 +1,220 @@
+package poe.Item.Parser;
+
+import poe.Item.Deserializers.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers what the branches of recently seen items resolved to. The stash api resends a whole stash whenever
+ * anything in it changes, so most items in a reply have been parsed minutes ago already. Entries are keyed by the
+ * api item id and validated against the league and a hash of every field the branches look at, so an item that was
+ * modified (eg. corrupted, re-rolled or split) is parsed again.
+ * <p>
+ * The cache is split into segments, each an access ordered LRU with its own lock.
+ */
+class ItemCache {
+    private final Segment[] segments;
+
+    /**
+     * Resolved branch of an item
+     */
+    static class Result {
+        final int id_d;
+        final Integer stackSize;
+        final boolean clearPrice;
+
+        Result(int id_d, Integer stackSize, boolean clearPrice) {
+            this.id_d = id_d;
+            this.stackSize = stackSize;
+            this.clearPrice = clearPrice;
+        }
+    }
+
+    private static class Entry {
+        private final int id_l;
+        private final long hash;
+        private final Result[] results;
+
+        private Entry(int id_l, long hash, Result[] results) {
+            this.id_l = id_l;
+            this.hash = hash;
+            this.results = results;
+        }
+    }
+
+    private static class Segment extends LinkedHashMap<String, Entry> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Default constructor
+     *
+     * @param size         Max number of items remembered
+     * @param segmentCount Number of independently locked segments
+     */
+    ItemCache(int size, int segmentCount) {
+        segments = new Segment[Math.max(1, segmentCount)];
+
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(Math.max(1, size / segments.length));
+        }
+    }
+
+    /**
+     * @param id   Api item id
+     * @param id_l League id
+     * @param hash Hash from {@link #hash(ApiItem)}
+     * @return Resolved branches (without discarded ones) or null if not cached or the item has changed
+     */
+    Result[] get(String id, int id_l, long hash) {
+        Segment segment = segmentOf(id);
+        Entry entry;
+
+        synchronized (segment) {
+            entry = segment.get(id);
+        }
+
+        if (entry == null || entry.id_l != id_l || entry.hash != hash) {
+            return null;
+        }
+
+        return entry.results;
+    }
+
+    /**
+     * @param id      Api item id
+     * @param id_l    League id
+     * @param hash    Hash from {@link #hash(ApiItem)}
+     * @param results Resolved branches (without discarded ones)
+     */
+    void put(String id, int id_l, long hash, Result[] results) {
+        Segment segment = segmentOf(id);
+        Entry entry = new Entry(id_l, hash, results);
+
+        synchronized (segment) {
+            segment.put(id, entry);
+        }
+    }
+
+    private Segment segmentOf(String id) {
+        int hash = id.hashCode();
+        return segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+    }
+
+    /**
+     * Hashes every field that category detection, the branches and indexing depend on. The note is left out as the
+     * price is determined separately.
+     *
+     * @param item Api item
+     * @return 64-bit hash
+     */
+    static long hash(ApiItem item) {
+        long h = 17;
+
+        h = mix(h, item.getName());
+        h = mix(h, item.getTypeLine());
+        h = mix(h, item.getIcon());
+        h = mix(h, item.getLeague());
+        h = mix(h, item.getProphecyText());
+        h = mix(h, item.getFrameType());
+        h = mix(h, item.getIlvl());
+        h = mix(h, item.isIdentified());
+        h = mix(h, item.getCorrupted());
+        h = mix(h, item.getSynthesised());
+        h = mix(h, item.isRaceReward());
+        h = mix(h, item.getStackSize());
+        h = mix(h, item.getExplicitMods());
+        h = mix(h, item.getEnchantMods());
+
+        Extended extended = item.getExtended();
+        if (extended == null) {
+            h = mix(h, 0);
+        } else {
+            h = mix(h, extended.getCategory());
+            h = mix(h, extended.getSubcategories());
+        }
+
+        Influences influences = item.getInfluences();
+        if (influences == null) {
+            h = mix(h, 0);
+        } else {
+            h = mix(h, influences.shaper);
+            h = mix(h, influences.elder);
+            h = mix(h, influences.crusader);
+            h = mix(h, influences.redeemer);
+            h = mix(h, influences.hunter);
+            h = mix(h, influences.warlord);
+        }
+
+        List<Property> properties = item.getProperties();
+        if (properties == null) {
+            h = mix(h, -1);
+        } else {
+            h = mix(h, properties.size());
+
+            for (Property property : properties) {
+                h = mix(h, property.name);
+
+                if (property.values == null) {
+                    h = mix(h, -1);
+                    continue;
+                }
+
+                for (List<String> value : property.values) {
+                    h = mix(h, value);
+                }
+            }
+        }
+
+        List<Socket> sockets = item.getSockets();
+        if (sockets == null) {
+            h = mix(h, -1);
+        } else {
+            h = mix(h, sockets.size());
+
+            for (Socket socket : sockets) {
+                h = mix(h, socket.group);
+                h = mix(h, socket.attr);
+            }
+        }
+
+        return h;
+    }
+
+    private static long mix(long h, int value) {
+        h ^= value;
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static long mix(long h, Object value) {
+        return mix(h, value == null ? 0x5bd1e995 : value.hashCode());
+    }
+
+    private static long mix(long h, List<String> values) {
+        if (values == null) {
+            return mix(h, -1);
+        }
+
+        h = mix(h, values.size());
+
+        for (String value : values) {
+            h = mix(h, (Object) value);
+        }
+
+        return h;
+    }
+}
@@ -4,21 +4,23 @@ import com.typesafe.config.Config;
 import poe.Database.Database;
 import poe.Item.Deserializers.ApiItem;
 import poe.Item.Deserializers.Reply;
+import poe.Item.Deserializers.ReplyReader;
 import poe.Item.Deserializers.Stash;
 import poe.Item.Branches.CraftingBaseBranch;
 import poe.Item.Branches.DefaultBranch;
 import poe.Item.Branches.EnchantBranch;
 import poe.Item.Item;
+import poe.Item.ItemContext;
 import poe.League.LeagueManager;
 import poe.Relation.Indexer;
 import poe.Statistics.StatType;
 import poe.Statistics.StatisticsManager;
 import poe.Utility.Utility;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class ItemParser {
     private final LeagueManager lm;
@@ -27,7 +29,10 @@ public class ItemParser {
     private final Indexer ix;
     private final Config cf;
 
-    private final Set<Long> activeStashIds = new HashSet<>(1000000);
+    private final Set<Long> activeStashIds = ConcurrentHashMap.newKeySet(1000000);
+    private final ItemCache itemCache;
+    private final StashDigests stashDigests;
+    private final ForkJoinPool forkJoinPool;
 
     /**
      * Default constructor
@@ -44,6 +49,18 @@ public class ItemParser {
         this.cf = cf;
         this.sm = sm;
         this.db = db;
+
+        this.itemCache = cf.getBoolean("itemCache.enable")
+                ? new ItemCache(cf.getInt("itemCache.size"), cf.getInt("itemCache.segments"))
+                : null;
+
+        this.stashDigests = cf.getBoolean("stashDigest.enable")
+                ? new StashDigests(cf.getInt("stashDigest.maxStashes"))
+                : null;
+
+        this.forkJoinPool = cf.getBoolean("parser.parallel")
+                ? new ForkJoinPool(cf.getInt("parser.parallelism"))
+                : null;
     }
 
     /**
@@ -60,141 +77,333 @@ public class ItemParser {
      * Processes items found though the public stash api
      */
     public void process(Reply reply) {
-        // All users in the reply
-        List<User> users = new ArrayList<>();
-        // All stash IDs in the reply
-        Set<Long> stashIdsToReset = new HashSet<>();
-        // All items in the reply
-        Set<DbItemEntry> dbItems = new HashSet<>();
+        upload(parse(reply));
+    }
+
+    /**
+     * Parses all stashes of a reply without touching the database
+     *
+     * @param reply Decoded stash api reply
+     * @return Bundle to be passed to upload
+     */
+    public ReplyBundle parse(Reply reply) {
+        if (forkJoinPool != null) {
+            return forkJoinPool.invoke(new StashTask(reply.stashes, 0, reply.stashes.size()));
+        }
+
+        ReplyBundle bundle = new ReplyBundle();
 
         // Loop though all stashes in the reply
-        processStashes(reply.stashes, users, stashIdsToReset, dbItems);
+        for (Stash stash : reply.stashes) {
+            processStash(stash, bundle);
+        }
+
+        return bundle;
+    }
+
+    /**
+     * Processes a range of a reply's stashes, splitting it in half until the ranges are small enough. Each range is
+     * parsed into its own bundle and the bundles are merged on the way back up.
+     */
+    private class StashTask extends RecursiveTask<ReplyBundle> {
+        private static final long serialVersionUID = 1L;
+        private final List<Stash> stashes;
+        private final int from, to;
+
+        private StashTask(List<Stash> stashes, int from, int to) {
+            this.stashes = stashes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ReplyBundle compute() {
+            if (to - from <= cf.getInt("parser.minStashesPerTask")) {
+                ReplyBundle bundle = new ReplyBundle();
+
+                for (int i = from; i < to; i++) {
+                    processStash(stashes.get(i), bundle);
+                }
+
+                return bundle;
+            }
+
+            int middle = (from + to) >>> 1;
+            StashTask left = new StashTask(stashes, from, middle);
+            left.fork();
 
+            ReplyBundle bundle = new StashTask(stashes, middle, to).compute();
+            ReplyBundle leftBundle = left.join();
+
+            // Keep the order of the reply
+            leftBundle.merge(bundle);
+            return leftBundle;
+        }
+    }
+
+    /**
+     * Collects statistics and shovels everything gathered from a reply to the database
+     *
+     * @param bundle Bundle filled by processStash
+     */
+    public void upload(ReplyBundle bundle) {
         // Collect some statistics
-        sm.addValue(StatType.COUNT_TOTAL_STASHES, reply.stashes.size());
-        sm.addValue(StatType.COUNT_ACCEPTED_ITEMS, dbItems.size());
+        sm.addValue(StatType.COUNT_TOTAL_STASHES, bundle.stashCount);
+        sm.addValue(StatType.COUNT_TOTAL_ITEMS, bundle.itemCount);
+        sm.addValue(StatType.COUNT_ACCEPTED_ITEMS, bundle.dbItems.size());
+        sm.addValue(StatType.COUNT_CACHED_ITEMS, bundle.cachedCount);
 
         // Shovel everything to db
-        db.upload.uploadAccountNames(users);
-        db.upload.uploadCharacterNames(users);
-        db.flag.resetStashReferences(stashIdsToReset);
-        db.upload.uploadEntries(dbItems);
+        db.upload.uploadAccountNames(bundle.users);
+        db.upload.uploadCharacterNames(bundle.users);
+
+        if (stashDigests == null) {
+            db.flag.resetStashReferences(bundle.stashIds);
+            db.upload.uploadEntries(bundle.dbItems);
+            sm.addValue(StatType.COUNT_UPLOADED_ITEMS, bundle.dbItems.size());
+            return;
+        }
+
+        uploadChanges(bundle);
     }
 
     /**
-     * Goes through all stashes and all items and processes them
+     * Uploads only the listings that changed since their stash was last uploaded. Stashes that are not remembered
+     * are reset and uploaded in full.
      *
-     * @param users All users in the reply
-     * @param stashIds  All stash IDs in the reply
-     * @param dbItems All items in the reply
+     * @param bundle Bundle filled by processStash
      */
-    private void processStashes(List<Stash> stashes, List<User> users, Set<Long> stashIds, Set<DbItemEntry> dbItems) {
-        // Number of items in the reply
-        int totalItemCount = 0;
+    private void uploadChanges(ReplyBundle bundle) {
+        Map<Long, List<DbItemEntry>> stashEntries = new HashMap<>();
+        for (DbItemEntry entry : bundle.dbItems) {
+            stashEntries.computeIfAbsent(entry.stash_crc, k -> new ArrayList<>()).add(entry);
+        }
 
-        // Loop though all stashes in the reply
-        for (Stash stash : stashes) {
-            // Add up the total items
-            totalItemCount += stash.items.size();
+        // Stashes that are being uploaded by another thread as well can't be diffed
+        Set<Long> stashes = new HashSet<>(bundle.stashIds);
+        stashes.addAll(stashEntries.keySet());
 
-            // Get league ID. If it's an unknown league (eg private or SSF), skip this stash
-            Integer id_l = lm.getLeagueId(stash.league);
-            if (id_l == null) continue;
+        Set<Long> overlapping = new HashSet<>();
+        for (Long stash_crc : stashes) {
+            if (!stashDigests.begin(stash_crc)) {
+                overlapping.add(stash_crc);
+            }
+        }
 
-            // Calculate CRC for the stash
-            Long stash_crc = Utility.calcCrc(stash.id);
+        try {
+            uploadChanges(bundle, stashEntries, overlapping);
+        } finally {
+            stashes.forEach(stashDigests::end);
+        }
+    }
 
-            // If the stash is in use somewhere in the database
-            synchronized (activeStashIds) {
-                if (activeStashIds.contains(stash_crc)) {
-                    stashIds.add(stash_crc);
-                }
+    /**
+     * Diffs the stashes against their digests and writes the changes to the database
+     *
+     * @param bundle       Bundle filled by processStash
+     * @param stashEntries Entries of the bundle by stash
+     * @param overlapping  Stashes that have to be uploaded in full
+     */
+    private void uploadChanges(ReplyBundle bundle, Map<Long, List<DbItemEntry>> stashEntries, Set<Long> overlapping) {
+        Set<Long> resetStashes = new HashSet<>();
+        Set<DbItemEntry> changed = new HashSet<>();
+        List<DbItemReference> removed = new ArrayList<>();
+
+        // Stashes that no longer have any valid items
+        for (Long stash_crc : bundle.stashIds) {
+            if (!stashEntries.containsKey(stash_crc)) {
+                stashDigests.invalidate(stash_crc);
+                resetStashes.add(stash_crc);
             }
+        }
 
-            // Skip if missing data
-            if (stash.accountName == null || !stash.isPublic) {
-                continue;
-            }
+        for (Map.Entry<Long, List<DbItemEntry>> stash : stashEntries.entrySet()) {
+            StashDigests.Diff diff = overlapping.contains(stash.getKey())
+                    ? null
+                    : stashDigests.update(stash.getKey(), stash.getValue());
 
-            // Create user (character name can be null here)
-            User user = new User(id_l, stash.accountName, stash.lastCharacterName);
+            if (diff == null) {
+                // Unknown stash, reset it if it's in use and upload everything
+                if (bundle.stashIds.contains(stash.getKey())) {
+                    resetStashes.add(stash.getKey());
+                }
 
-            // If the user already existed
-            if (users.contains(user)) {
-                user = users.get(users.indexOf(user));
+                changed.addAll(stash.getValue());
             } else {
-                users.add(user);
+                changed.addAll(diff.changed);
+                removed.addAll(diff.removed);
             }
+        }
 
-            // If the stash contained any items that would be added to db
-            boolean hasValidItems = false;
+        boolean success = db.flag.resetStashReferences(resetStashes);
+        success &= db.flag.resetItemReferences(removed);
+        success &= db.upload.uploadEntries(changed);
+        sm.addValue(StatType.COUNT_UPLOADED_ITEMS, changed.size());
 
-            // Loop through the items
-            for (ApiItem apiItem : stash.items) {
-                // Branch the item, if necessary.
-                ArrayList<Item> branches = createBranches(apiItem);
+        // Whatever failed has to be uploaded in full next time
+        if (!success) {
+            stashEntries.keySet().forEach(stashDigests::invalidate);
+            return;
+        }
 
-                // Attempt to determine the price of the item
-                Price price = new Price(apiItem.getNote(), stash.stashName);
+        for (DbItemEntry entry : changed) {
+            if (entry.user.accountId == 0) {
+                stashDigests.invalidate(entry.stash_crc);
+            }
+        }
+    }
 
-                // If item didn't have a valid price
-                if (!price.hasPrice() && !cf.getBoolean("entry.acceptNullPrice")) {
-                    continue;
-                }
+    /**
+     * Decides whether a stash's items are worth deserializing. Used by {@link ReplyReader} to skip the items of
+     * stashes that processStash would drop anyway.
+     *
+     * @param stash Stash with all fields except its items read
+     * @return False if the items would be discarded
+     */
+    public boolean wantsItems(Stash stash) {
+        return stash.accountName != null && stash.isPublic && lm.getLeagueId(stash.league) != null;
+    }
+
+    /**
+     * Processes a single stash and all its items. Can be called as soon as a stash has been
+     * deserialized, without waiting for the rest of the reply.
+     *
+     * @param stash  Stash to process
+     * @param bundle Bundle to collect users, stash IDs and items into
+     */
+    public void processStash(Stash stash, ReplyBundle bundle) {
+        bundle.stashCount++;
+
+        // Add up the total items
+        bundle.itemCount += stash.getItemCount();
+
+        // Get league ID. If it's an unknown league (eg private or SSF), skip this stash
+        Integer id_l = lm.getLeagueId(stash.league);
+        if (id_l == null) return;
+
+        // Calculate CRC for the stash
+        Long stash_crc = Utility.calcCrc(stash.id);
+
+        // If the stash is in use somewhere in the database
+        if (activeStashIds.contains(stash_crc)) {
+            bundle.stashIds.add(stash_crc);
+        }
+
+        // Skip if missing data or the items were skipped during decoding
+        if (stash.accountName == null || !stash.isPublic || stash.items == null) {
+            return;
+        }
+
+        // Create user (character name can be null here), or use the existing one
+        User user = bundle.addUser(new User(id_l, stash.accountName, stash.lastCharacterName));
 
-                // Parse branched items and create objects for db upload
-                for (Item item : branches) {
-                    if (item.isDiscard()) {
-                        continue;
-                    }
+        // If the stash contained any items that would be added to db
+        boolean hasValidItems = false;
 
-                    // Get item's ID (if missing, index it)
-                    Integer id_d = ix.index(item, id_l);
-                    if (id_d == null) continue;
+        // Loop through the items
+        for (ApiItem apiItem : stash.items) {
+            // Attempt to determine the price of the item
+            Price price = new Price(apiItem.getNote(), stash.stashName);
 
-                    // Calculate crc of item's ID
-                    long itemCrc = Utility.calcCrc(apiItem.getId());
+            // If item didn't have a valid price, skip it before doing any work on it
+            if (!price.hasPrice() && !cf.getBoolean("entry.acceptNullPrice")) {
+                continue;
+            }
 
-                    // Create DB entry object
-                    DbItemEntry entry = new DbItemEntry(id_l, id_d, stash_crc, itemCrc, item.getStackSize(), price, user);
+            // Check whether the item was parsed recently and hasn't changed since
+            boolean cacheable = itemCache != null && apiItem.getId() != null;
+            long itemHash = cacheable ? ItemCache.hash(apiItem) : 0;
+            ItemCache.Result[] cached = cacheable ? itemCache.get(apiItem.getId(), id_l, itemHash) : null;
 
-                    // If item should be recorded but should not have a price
-                    if (item.isClearPrice() && cf.getBoolean("entry.removeEnchantedHelmetPrices")) {
-                        entry.price = null;
-                    }
+            // Calculate crc of item's ID
+            long itemCrc = Utility.calcCrc(apiItem.getId());
 
-                    // Set flag to indicate the stash contained at least 1 valid item
+            // Reuse the ids the branches resolved to last time
+            if (cached != null) {
+                for (ItemCache.Result result : cached) {
+                    addEntry(bundle, id_l, stash_crc, itemCrc, result, price, user);
                     hasValidItems = true;
-                    dbItems.add(entry);
                 }
+
+                bundle.cachedCount++;
+                continue;
             }
 
-            // If stash contained at least 1 valid item, save the stash id
-            if (hasValidItems) {
-                activeStashIds.add(stash_crc);
+            // Branch the item, if necessary.
+            ArrayList<Item> branches = createBranches(new ItemContext(apiItem));
+
+            ArrayList<ItemCache.Result> results = new ArrayList<>(branches.size());
+            boolean complete = true;
+
+            // Parse branched items and create objects for db upload
+            for (Item item : branches) {
+                if (item.isDiscard()) {
+                    continue;
+                }
+
+                // Get item's ID (if missing, index it)
+                Integer id_d = ix.index(item, id_l);
+                if (id_d == null) {
+                    complete = false;
+                    continue;
+                }
+
+                ItemCache.Result result = new ItemCache.Result(id_d, item.getStackSize(), item.isClearPrice());
+                addEntry(bundle, id_l, stash_crc, itemCrc, result, price, user);
+                results.add(result);
+
+                // Set flag to indicate the stash contained at least 1 valid item
+                hasValidItems = true;
+            }
+
+            // Only remember items whose branches all resolved
+            if (cacheable && complete) {
+                itemCache.put(apiItem.getId(), id_l, itemHash, results.toArray(new ItemCache.Result[0]));
             }
         }
 
-        sm.addValue(StatType.COUNT_TOTAL_ITEMS, totalItemCount);
+        // If stash contained at least 1 valid item, save the stash id
+        if (hasValidItems) {
+            activeStashIds.add(stash_crc);
+        }
+    }
+
+    /**
+     * Creates a database entry for a resolved branch
+     */
+    private void addEntry(ReplyBundle bundle, int id_l, long stash_crc, long itemCrc, ItemCache.Result result,
+                          Price price, User user) {
+        // Create DB entry object
+        DbItemEntry entry = new DbItemEntry(id_l, result.id_d, stash_crc, itemCrc, result.stackSize, price, user);
+
+        // If item should be recorded but should not have a price
+        if (result.clearPrice && cf.getBoolean("entry.removeEnchantedHelmetPrices")) {
+            entry.price = null;
+        }
+
+        bundle.dbItems.add(entry);
     }
 
     /**
      * Check if item should be branched (i.e there could be more than one database entry from that item)
+     *
+     * @param context Context shared by all branches of the item
      */
-    private ArrayList<Item> createBranches(ApiItem apiItem) {
+    private ArrayList<Item> createBranches(ItemContext context) {
+        ApiItem apiItem = context.getApiItem();
         ArrayList<Item> branches = new ArrayList<>(1);
 
         // Default item
-        branches.add(new DefaultBranch(apiItem));
+        branches.add(new DefaultBranch(context));
 
         // If item is enchanted
         if (apiItem.isEnchantBranch()) {
-            branches.add(new EnchantBranch(apiItem));
+            branches.add(new EnchantBranch(context));
         }
 
         // If item is a crafting base
         if (apiItem.isCraftingBranch()) {
-            branches.add(new CraftingBaseBranch(apiItem));
+            branches.add(new CraftingBaseBranch(context));
         }
 
         return branches;
@@ -2,12 +2,24 @@ package poe.Item.Parser;
 
 import poe.Relation.RelationResources;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 public class Price {
     private static RelationResources relationResources;
     private boolean hasPrice;
     private Integer currencyId;
     private double price;
 
+    // Parsed notes shared by all workers. Item notes and especially stash names repeat a lot
+    private static final int cacheSize = 1 << 14;
+    private static final AtomicReferenceArray<Parsed> cache = new AtomicReferenceArray<>(cacheSize);
+
+    // Powers of ten that are exact as doubles
+    private static final double[] powers = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     public Price(String itemNote, String stashNote) {
         parseBuyoutNote(itemNote);
 
@@ -39,50 +51,174 @@ public class Price {
             return;
         }
 
-        String[] noteList = buyoutNote.split("\\s+");
+        int index = (buyoutNote.hashCode() & 0x7fffffff) % cacheSize;
+        Parsed parsed = cache.get(index);
 
-        // Make sure note_list has 3 strings (eg ["~b/o", "5.3", "chaos"])
-        if (noteList.length < 3 || !noteList[0].equals("~b/o") && !noteList[0].equals("~price")) {
-            return;
+        if (parsed == null || !buyoutNote.equals(parsed.note)) {
+            parsed = parse(buyoutNote);
+            cache.lazySet(index, parsed);
         }
 
-        // If the price has a ration then split it (eg ["5, 3"] with or ["24.3"] without a ration)
-        String[] priceArray = noteList[1].split("/");
+        if (parsed.hasPrice) {
+            price = parsed.price;
+            currencyId = parsed.currencyId;
+            hasPrice = true;
+        }
+    }
 
-        // Try to figure out if price is numeric
-        try {
-            if (priceArray.length == 1) {
-                price = Double.parseDouble(priceArray[0]);
-            } else {
-                price = Double.parseDouble(priceArray[0]) / Double.parseDouble(priceArray[1]);
-            }
-        } catch (Exception ex) {
-            return;
+    /**
+     * Parses a buyout note (eg "~b/o 5.3 chaos" or "~price 3/2 exa"). The note is scanned in place, only the
+     * currency alias is copied out for the lookup.
+     *
+     * @param note User-set buyout note
+     * @return Parse result
+     */
+    private static Parsed parse(String note) {
+        // Find the first three whitespace separated tokens. A note starting with whitespace is not valid
+        int end0 = tokenEnd(note, 0);
+        int start1 = tokenStart(note, end0);
+        int end1 = tokenEnd(note, start1);
+        int start2 = tokenStart(note, end1);
+        int end2 = tokenEnd(note, start2);
+
+        if (end0 == 0 || start1 == end1 || start2 == end2) {
+            return new Parsed(note, 0, null, false);
+        }
+
+        if (!isTag(note, end0, "~b/o") && !isTag(note, end0, "~price")) {
+            return new Parsed(note, 0, null, false);
         }
 
+        double price = parseRatio(note, start1, end1);
+
         // An error somewhere
         if (Double.isNaN(price)) {
-            return;
+            return new Parsed(note, 0, null, false);
         }
 
         // Is the listed currency alias valid?
-        if (!relationResources.hasCurrencyAlias(noteList[2])) {
-            return;
+        String alias = note.substring(start2, end2);
+        if (!relationResources.hasCurrencyAlias(alias)) {
+            return new Parsed(note, 0, null, false);
         }
 
         // If listed price was something retarded
         if (price < 0.0001 || price > 90000) {
-            return;
+            return new Parsed(note, 0, null, false);
         }
 
         // Get id of the currency the item was listed for
-        currencyId = relationResources.getCurrencyAlias(noteList[2]);
+        return new Parsed(note, price, relationResources.getCurrencyAlias(alias), true);
+    }
 
-        // Mark that we were able to get a valid price from the buyout note
-        hasPrice = true;
+    private static boolean isTag(String note, int end, String tag) {
+        return end == tag.length() && note.startsWith(tag);
+    }
+
+    /**
+     * Parses the price token, which may be a ratio (eg "5/3"). Ratios with more than two parts use the first two
+     * and trailing slashes are ignored, same as splitting the token on slashes did.
+     *
+     * @return Price or NaN if not numeric
+     */
+    private static double parseRatio(String note, int start, int end) {
+        int slash = note.indexOf('/', start);
+
+        if (slash < 0 || slash >= end) {
+            return parseNumber(note, start, end);
+        }
+
+        // Skip trailing slashes (eg "5/" or "5//")
+        int next = slash + 1;
+        while (next < end && note.charAt(next) == '/') next++;
+        if (next == end) {
+            return parseNumber(note, start, slash);
+        }
+
+        // Consecutive slashes between the numbers create an empty part
+        if (next != slash + 1) {
+            return Double.NaN;
+        }
+
+        int slash2 = note.indexOf('/', next);
+        if (slash2 < 0 || slash2 >= end) slash2 = end;
+
+        return parseNumber(note, start, slash) / parseNumber(note, next, slash2);
+    }
+
+    /**
+     * Parses plain decimals (eg "24" or "5.3") without allocating. The result is exact as long as there are at most
+     * 15 digits, since both the mantissa and the power of ten are then exact doubles. Anything else goes through
+     * {@link Double#parseDouble}.
+     *
+     * @return Number or NaN if not numeric
+     */
+    private static double parseNumber(String note, int start, int end) {
+        long mantissa = 0;
+        int digits = 0, decimals = -1;
+
+        for (int i = start; i < end; i++) {
+            char c = note.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0) decimals++;
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                digits = -1;
+                break;
+            }
+        }
+
+        if (digits > 0 && digits <= 15) {
+            return decimals <= 0 ? mantissa : mantissa / powers[decimals];
+        }
+
+        // Exponents, signs, long fractions, etc
+        try {
+            return Double.parseDouble(note.substring(start, end));
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    private static int tokenStart(String note, int from) {
+        while (from < note.length() && isWhitespace(note.charAt(from))) from++;
+        return from;
+    }
+
+    private static int tokenEnd(String note, int from) {
+        while (from < note.length() && !isWhitespace(note.charAt(from))) from++;
+        return from;
+    }
+
+    /**
+     * Same characters as the regex \s
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     public Integer getCurrencyId() {
         return currencyId;
     }
+
+    /**
+     * Immutable result of parsing a note
+     */
+    private static class Parsed {
+        private final String note;
+        private final double price;
+        private final Integer currencyId;
+        private final boolean hasPrice;
+
+        private Parsed(String note, double price, Integer currencyId, boolean hasPrice) {
+            this.note = note;
+            this.price = price;
+            this.currencyId = currencyId;
+            this.hasPrice = hasPrice;
+        }
+    }
 }
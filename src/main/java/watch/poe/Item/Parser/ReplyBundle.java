@@ -0,0 +1,66 @@
+package poe.Item.Parser;
+
+import java.util.*;
+
+/**
+ * Holds everything gathered from the stashes of a single reply until it's uploaded to the database
+ */
+public class ReplyBundle {
+    // All users in the reply
+    final List<User> users = new ArrayList<>();
+    // Users by themselves, for finding the instance already in the list
+    private final Map<User, User> userIndex = new HashMap<>();
+    // All stash IDs in the reply
+    final Set<Long> stashIds = new HashSet<>();
+    // All items in the reply
+    final Set<DbItemEntry> dbItems = new HashSet<>();
+
+    int stashCount, itemCount, cachedCount;
+
+    /**
+     * Returns the bundle's instance of the user, adding the user if it's not in the bundle yet
+     *
+     * @param user User to look up
+     * @return Instance of the user in the bundle
+     */
+    User addUser(User user) {
+        User existing = userIndex.putIfAbsent(user, user);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        users.add(user);
+        return user;
+    }
+
+    /**
+     * Moves everything from another bundle into this one. Entries are pointed to this bundle's instances of their
+     * users, as only those get their account ids set during upload.
+     *
+     * @param other Bundle to merge
+     */
+    void merge(ReplyBundle other) {
+        for (User user : other.users) {
+            addUser(user);
+        }
+
+        for (DbItemEntry entry : other.dbItems) {
+            entry.user = userIndex.get(entry.user);
+            dbItems.add(entry);
+        }
+
+        stashIds.addAll(other.stashIds);
+        stashCount += other.stashCount;
+        itemCount += other.itemCount;
+        cachedCount += other.cachedCount;
+    }
+
+    public int getStashCount() {
+        return stashCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+}
@@ -0,0 +1,199 @@
+package poe.Item.Parser;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers what was last uploaded for each stash, so that a resent stash only has its changed listings written to
+ * the database. A digest holds one (item data id, item crc) key per listing along with a hash of its price,
+ * currency and stack size, sorted by key so that two digests can be compared in a single pass.
+ * <p>
+ * Only the most recently updated stashes are remembered. A stash without a digest is uploaded in full, same as
+ * before, so dropping a digest is always safe.
+ * <p>
+ * Replies are uploaded by several threads, so two uploads of the same stash can overlap and commit in either order.
+ * A digest is only trusted if no other upload of its stash was running in the meantime, see {@link #begin(long)}.
+ */
+class StashDigests {
+    private final LinkedHashMap<Long, Digest> digests;
+    // Uploads in progress by stash. Guarded by digests
+    private final Map<Long, Upload> uploads = new HashMap<>();
+
+    /**
+     * Changes of a stash compared to its last digest
+     */
+    static class Diff {
+        final List<DbItemEntry> changed = new ArrayList<>();
+        final List<DbItemReference> removed = new ArrayList<>();
+    }
+
+    private static class Upload {
+        private int count;
+        private boolean overlapped;
+    }
+
+    private static class Digest {
+        private final long[] keys, values;
+
+        private Digest(long[] keys, long[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Default constructor
+     *
+     * @param maxStashes Max number of stashes remembered
+     */
+    StashDigests(int maxStashes) {
+        this.digests = new LinkedHashMap<Long, Digest>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Digest> eldest) {
+                return size() > maxStashes;
+            }
+        };
+    }
+
+    /**
+     * Replaces the stash's digest with one built from its current entries
+     *
+     * @param stash_crc Stash crc
+     * @param entries   All current entries of the stash. Will be sorted
+     * @return Added, changed and removed listings or null if the stash had no digest
+     */
+    Diff update(long stash_crc, List<DbItemEntry> entries) {
+        entries.sort(Comparator.comparingLong(StashDigests::key));
+
+        long[] keys = new long[entries.size()];
+        long[] values = new long[entries.size()];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(entries.get(i));
+            values[i] = value(entries.get(i));
+        }
+
+        Digest previous;
+
+        synchronized (digests) {
+            previous = digests.put(stash_crc, new Digest(keys, values));
+        }
+
+        if (previous == null) {
+            return null;
+        }
+
+        Diff diff = new Diff();
+        int p = 0;
+
+        // Walk both sorted digests side by side
+        for (int i = 0; i < keys.length; i++) {
+            // Listings that are gone
+            while (p < previous.keys.length && previous.keys[p] < keys[i]) {
+                // A surplus copy of a listing that is still there is not a removal
+                if (i == 0 || previous.keys[p] != keys[i - 1]) {
+                    diff.removed.add(reference(stash_crc, previous.keys[p]));
+                }
+
+                p++;
+            }
+
+            // Duplicates of the same listing are always passed on
+            if (i > 0 && keys[i] == keys[i - 1]) {
+                diff.changed.add(entries.get(i));
+                continue;
+            }
+
+            if (p < previous.keys.length && previous.keys[p] == keys[i]) {
+                if (previous.values[p] != values[i]) {
+                    diff.changed.add(entries.get(i));
+                }
+
+                p++;
+            } else {
+                diff.changed.add(entries.get(i));
+            }
+        }
+
+        while (p < previous.keys.length) {
+            if (keys.length == 0 || previous.keys[p] != keys[keys.length - 1]) {
+                diff.removed.add(reference(stash_crc, previous.keys[p]));
+            }
+
+            p++;
+        }
+
+        return diff;
+    }
+
+    /**
+     * Marks the start of a stash's upload. Must be followed by {@link #end(long)} once the upload's database writes
+     * have finished, whether they succeeded or not.
+     *
+     * @param stash_crc Stash crc
+     * @return False if another upload of the stash is still running. The stash must then be uploaded in full
+     */
+    boolean begin(long stash_crc) {
+        synchronized (digests) {
+            Upload upload = uploads.computeIfAbsent(stash_crc, k -> new Upload());
+
+            if (upload.count++ > 0) {
+                upload.overlapped = true;
+                return false;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Marks the end of a stash's upload. If it overlapped with another upload of the same stash, it's unknown which
+     * of them was written last, so the stash's digest is dropped once the last of them ends.
+     *
+     * @param stash_crc Stash crc
+     */
+    void end(long stash_crc) {
+        synchronized (digests) {
+            Upload upload = uploads.get(stash_crc);
+            if (upload == null || --upload.count > 0) {
+                return;
+            }
+
+            uploads.remove(stash_crc);
+
+            if (upload.overlapped) {
+                digests.remove(stash_crc);
+            }
+        }
+    }
+
+    /**
+     * Forgets a stash, eg. after its upload failed or it was emptied
+     *
+     * @param stash_crc Stash crc
+     */
+    void invalidate(long stash_crc) {
+        synchronized (digests) {
+            digests.remove(stash_crc);
+        }
+    }
+
+    private static long key(DbItemEntry entry) {
+        return (long) entry.id_d << 32 | entry.item_crc & 0xffffffffL;
+    }
+
+    private static DbItemReference reference(long stash_crc, long key) {
+        return new DbItemReference((int) (key >>> 32), stash_crc, key & 0xffffffffL);
+    }
+
+    private static long value(DbItemEntry entry) {
+        long h = entry.price == null ? 0x7ff8dead : Double.doubleToLongBits(entry.price);
+        h = h * 31 + (entry.id_price == null ? -1 : entry.id_price);
+        h = h * 31 + (entry.stackSize == null ? -1 : entry.stackSize);
+        return h * 0x9E3779B97F4A7C15L;
+    }
+}
@@ -1,5 +1,10 @@
 package poe.Item;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public enum VariantEnum {
     splendour_ar_ev_es("Atziri's Splendour", "ar/ev/es", "increased Armour, Evasion and Energy Shield"),
     splendour_ar_es_li("Atziri's Splendour", "ar/es/li", "increased Armour and Energy Shield", "to maximum Life"),
@@ -67,6 +72,37 @@ public enum VariantEnum {
     private String variation;
     private String[] itemMods;
 
+    // Set bit i means the variant requires mod i of its item's distinct mods
+    private long modMask;
+
+    private static final Map<String, Candidates> byName = new HashMap<>();
+
+    /**
+     * Variants of a single item, in declaration order, along with the distinct mods they look for
+     */
+    private static class Candidates {
+        private final List<VariantEnum> variants = new ArrayList<>();
+        private final List<String> mods = new ArrayList<>();
+    }
+
+    static {
+        for (VariantEnum variant : values()) {
+            Candidates candidates = byName.computeIfAbsent(variant.itemName, k -> new Candidates());
+            candidates.variants.add(variant);
+
+            for (String mod : variant.itemMods) {
+                int index = candidates.mods.indexOf(mod);
+
+                if (index < 0) {
+                    index = candidates.mods.size();
+                    candidates.mods.add(mod);
+                }
+
+                variant.modMask |= 1L << index;
+            }
+        }
+    }
+
     VariantEnum(String itemName, String variation, String... itemMods) {
         this.itemName = itemName;
         this.variation = variation;
@@ -74,37 +110,42 @@ public enum VariantEnum {
     }
 
     public static VariantEnum findVariant(Item item) {
-        // Go through all variations
-        for (VariantEnum variation : VariantEnum.values()) {
-            // Check if the item name matches
-            if (!item.key.name.equals(variation.itemName)) {
-                continue;
-            }
+        // Most items have no variants at all
+        Candidates candidates = byName.get(item.key.name);
+        if (candidates == null) {
+            return null;
+        }
 
-            // Bit of spaghetti for prophecies
-            if (item.key.frame == 8) {
+        // Bit of spaghetti for prophecies
+        if (item.key.frame == 8) {
+            for (VariantEnum variation : candidates.variants) {
                 if (item.originalItem.getProphecyText().contains(variation.itemMods[0])) {
                     return variation;
-                } else {
-                    continue;
                 }
             }
 
-            int matches = 0;
+            return null;
+        }
+
+        List<String> explicitMods = item.getExplicitMods();
+        if (explicitMods == null) {
+            return null;
+        }
 
-            // Go though all the item's explicit modifiers and the current variant's mods
-            for (String variantMod : variation.itemMods) {
-                for (String itemMod : item.getExplicitMods()) {
-                    if (itemMod.contains(variantMod)) {
-                        // If one of the item's mods matches one of the variant's mods, increase the match counter
-                        matches++;
-                        break;
-                    }
+        // Check each distinct mod of the item's variants once
+        long found = 0;
+        for (int i = 0; i < candidates.mods.size(); i++) {
+            for (String itemMod : explicitMods) {
+                if (itemMod.contains(candidates.mods.get(i))) {
+                    found |= 1L << i;
+                    break;
                 }
             }
+        }
 
-            // If all the variant's mods were present in the item then this item will take this variant's variation
-            if (matches == variation.itemMods.length) {
+        // If all the variant's mods were present in the item then this item will take this variant's variation
+        for (VariantEnum variation : candidates.variants) {
+            if ((variation.modMask & found) == variation.modMask) {
                 return variation;
             }
         }
@@ -113,8 +154,13 @@ public enum VariantEnum {
     }
 
     public static VariantEnum findByVariation(String name, String variation) {
-        for (VariantEnum value : VariantEnum.values()) {
-            if (value.itemName.equals(name) && value.variation.equals(variation)) {
+        Candidates candidates = byName.get(name);
+        if (candidates == null) {
+            return null;
+        }
+
+        for (VariantEnum value : candidates.variants) {
+            if (value.variation.equals(variation)) {
                 return value;
             }
         }
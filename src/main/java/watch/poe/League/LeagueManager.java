@@ -74,7 +74,7 @@ public class LeagueManager {
 
         try {
             // Define the request
-            URL request = new URL("http://api.pathofexile.com/leagues?type=main");
+            URL request = new URL(config.getString("api.leagueUrl"));
             HttpURLConnection connection = (HttpURLConnection) request.openConnection();
 
             connection.setReadTimeout(config.getInt("league.readTimeout"));
@@ -0,0 +1,402 @@
+package poe.Mock;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import poe.Worker.ReplaySource;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process stand-in for the stash and league APIs, for load testing. Serves replies recorded by the reply recorder
+ * or generates synthetic ones, and can add latency, cap throughput and inject errors. Point api.stashUrl and
+ * api.leagueUrl at it to use it.
+ */
+public class MockApiServer {
+    private static final Logger logger = LoggerFactory.getLogger(MockApiServer.class);
+    private static final Gson gson = new Gson();
+    private static final String iconUrl = "https://web.poecdn.com/image/Art/2DItems/";
+
+    private final Config cf;
+    private final List<String> recordedIds = new ArrayList<>();
+    private final Map<String, byte[]> recordedReplies = new HashMap<>();
+    private final AtomicLong itemCounter = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MockApiServer(Config cf) {
+        this.cf = cf;
+    }
+
+    /**
+     * Loads recordings, if any, and starts listening
+     *
+     * @return True on success
+     */
+    public boolean start() {
+        String recordings = cf.getString("mock.recordings");
+
+        if (!recordings.isEmpty() && !loadRecordings(Paths.get(recordings))) {
+            return false;
+        }
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(cf.getInt("mock.port")), 0);
+        } catch (IOException ex) {
+            logger.error("Could not start mock API server", ex);
+            return false;
+        }
+
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/api/public-stash-tabs", this::handleStashes);
+        server.createContext("/leagues", this::handleLeagues);
+        server.start();
+
+        logger.info("Mock API server listening on port {} ({} replies)", cf.getInt("mock.port"),
+                recordedIds.isEmpty() ? "synthetic" : recordedIds.size() + " recorded");
+        return true;
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads all replies from a segment or directory of segments into memory
+     *
+     * @param path Segment file or directory
+     * @return True on success
+     */
+    private boolean loadRecordings(Path path) {
+        try {
+            for (Path segment : ReplaySource.findSegments(path)) {
+                try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+                        new BufferedInputStream(Files.newInputStream(segment)), 65536))) {
+                    while (true) {
+                        String changeId = in.readUTF();
+                        byte[] reply = new byte[in.readInt()];
+                        in.readFully(reply);
+
+                        if (recordedReplies.put(changeId, reply) == null) {
+                            recordedIds.add(changeId);
+                        }
+                    }
+                } catch (EOFException ignored) {
+                    // End of segment
+                }
+            }
+        } catch (IOException ex) {
+            logger.error("Could not load recordings from " + path, ex);
+            return false;
+        }
+
+        if (recordedIds.isEmpty()) {
+            logger.error("No recorded replies found in {}", path);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Serves /api/public-stash-tabs?id=
+     */
+    private void handleStashes(HttpExchange exchange) throws IOException {
+        try {
+            if (injectError(exchange)) {
+                return;
+            }
+
+            String changeId = getQueryParam(exchange.getRequestURI(), "id");
+            byte[] body;
+
+            if (recordedIds.isEmpty()) {
+                body = generateReply(changeId).getBytes(StandardCharsets.UTF_8);
+            } else {
+                // Unknown ids start the recording over from the beginning
+                body = recordedReplies.getOrDefault(changeId, recordedReplies.get(recordedIds.get(0)));
+            }
+
+            send(exchange, body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Serves /leagues?type=main
+     */
+    private void handleLeagues(HttpExchange exchange) throws IOException {
+        try {
+            JsonArray leagues = new JsonArray();
+
+            for (String name : cf.getStringList("mock.leagues")) {
+                JsonObject league = new JsonObject();
+                league.addProperty("id", name);
+                league.addProperty("event", false);
+                league.add("rules", new JsonArray());
+                leagues.add(league);
+            }
+
+            send(exchange, gson.toJson(leagues).getBytes(StandardCharsets.UTF_8));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Randomly fails the request, if error injection is enabled
+     *
+     * @return True if an error was sent and the request should not be served
+     */
+    private boolean injectError(HttpExchange exchange) throws IOException {
+        double roll = ThreadLocalRandom.current().nextDouble() * 100;
+
+        if ((roll -= cf.getDouble("mock.timeoutRate")) < 0) {
+            // Hold the connection without answering until the client gives up
+            sleepFor(cf.getInt("mock.timeoutDelay"));
+            return true;
+        }
+
+        if ((roll -= cf.getDouble("mock.error4xxRate")) < 0) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            exchange.sendResponseHeaders(429, -1);
+            return true;
+        }
+
+        if ((roll - cf.getDouble("mock.error5xxRate")) < 0) {
+            exchange.sendResponseHeaders(503, -1);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Sends a successful response after the configured latency, compressed if the client accepts it and throttled
+     * to the configured throughput
+     */
+    private void send(HttpExchange exchange, byte[] body) throws IOException {
+        sleepFor(cf.getInt("mock.latency"));
+
+        String policy = cf.getString("mock.rateLimitPolicy");
+        if (!policy.isEmpty()) {
+            exchange.getResponseHeaders().set("X-Rate-Limit-Rules", "Ip");
+            exchange.getResponseHeaders().set("X-Rate-Limit-Ip", policy);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = accept != null && accept.contains("gzip");
+
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+
+        // Length 0 means chunked transfer
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = new ThrottledStream(exchange.getResponseBody(), cf.getInt("mock.throughput") * 1024L);
+        if (gzip) out = new GZIPOutputStream(out, 8192);
+
+        try (OutputStream stream = out) {
+            stream.write(body);
+        }
+    }
+
+    /**
+     * Generates a reply with a few stashes of typical items. The next change id is the requested one with every
+     * component incremented, so workers can follow the river indefinitely.
+     *
+     * @param changeId Requested change id
+     * @return Reply JSON
+     */
+    private String generateReply(String changeId) {
+        JsonObject reply = new JsonObject();
+        reply.addProperty("next_change_id", nextChangeId(changeId));
+
+        List<String> leagues = cf.getStringList("mock.leagues");
+        JsonArray stashes = new JsonArray();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < cf.getInt("mock.stashesPerReply"); i++) {
+            JsonObject stash = new JsonObject();
+            String league = leagues.get(random.nextInt(leagues.size()));
+            int account = random.nextInt(1000);
+
+            stash.addProperty("id", String.format("%064x", random.nextInt(100000)));
+            stash.addProperty("public", true);
+            stash.addProperty("accountName", "account" + account);
+            stash.addProperty("lastCharacterName", "character" + account);
+            stash.addProperty("stash", "~price 1 chaos");
+            stash.addProperty("stashType", "PremiumStash");
+            stash.addProperty("league", league);
+
+            JsonArray items = new JsonArray();
+            for (int j = 0; j < cf.getInt("mock.itemsPerStash"); j++) {
+                items.add(generateItem(league, random));
+            }
+
+            stash.add("items", items);
+            stashes.add(stash);
+        }
+
+        reply.add("stashes", stashes);
+        return gson.toJson(reply);
+    }
+
+    private JsonObject generateItem(String league, ThreadLocalRandom random) {
+        JsonObject item = new JsonObject();
+        JsonObject extended = new JsonObject();
+
+        item.addProperty("id", String.format("%064x", itemCounter.incrementAndGet()));
+        item.addProperty("league", league);
+        item.addProperty("identified", true);
+        item.addProperty("ilvl", 0);
+        item.addProperty("name", "");
+        item.add("extended", extended);
+
+        switch (random.nextInt(3)) {
+            case 0:
+                item.addProperty("typeLine", "Exalted Orb");
+                item.addProperty("frameType", 5);
+                item.addProperty("stackSize", 1 + random.nextInt(10));
+                item.addProperty("icon", iconUrl + "Currency/CurrencyAddModToRare.png");
+                item.addProperty("note", String.format("~b/o %d chaos", 140 + random.nextInt(20)));
+                extended.addProperty("category", "currency");
+                break;
+
+            case 1:
+                item.addProperty("typeLine", "The Doctor");
+                item.addProperty("frameType", 6);
+                item.addProperty("stackSize", 1);
+                item.addProperty("icon", iconUrl + "Divination/InventoryIcon.png");
+                item.addProperty("note", String.format("~price %d exalted", 5 + random.nextInt(3)));
+                extended.addProperty("category", "cards");
+                break;
+
+            default:
+                item.addProperty("name", "Tabula Rasa");
+                item.addProperty("typeLine", "Simple Robe");
+                item.addProperty("frameType", 3);
+                item.addProperty("ilvl", 70);
+                item.addProperty("icon", iconUrl + "Armours/BodyArmours/TabulaRasa.png");
+                item.addProperty("note", String.format("~price %d chaos", 5 + random.nextInt(10)));
+                extended.addProperty("category", "armour");
+
+                JsonArray subcategories = new JsonArray();
+                subcategories.add("chest");
+                extended.add("subcategories", subcategories);
+                break;
+        }
+
+        return item;
+    }
+
+    /**
+     * Increments every numeric component of a change id (eg "1-2-3-4-5" becomes "2-3-4-5-6")
+     */
+    static String nextChangeId(String changeId) {
+        if (changeId == null || changeId.isEmpty()) {
+            return "0-0-0-0-0";
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for (String part : changeId.split("-")) {
+            if (sb.length() > 0) sb.append('-');
+
+            try {
+                sb.append(Long.parseLong(part) + 1);
+            } catch (NumberFormatException ex) {
+                sb.append(0);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String getQueryParam(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) return null;
+
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+
+        return null;
+    }
+
+    private static void sleepFor(int timeMS) {
+        if (timeMS <= 0) return;
+
+        try {
+            Thread.sleep(timeMS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Caps the rate at which bytes are written
+     */
+    private static class ThrottledStream extends FilterOutputStream {
+        private static final int chunkSize = 8192;
+        private final long bytesPerSecond;
+        private final long startTime = System.nanoTime();
+        private long written = 0;
+
+        /**
+         * @param out            Stream to write to
+         * @param bytesPerSecond Max throughput, 0 for unlimited
+         */
+        private ThrottledStream(OutputStream out, long bytesPerSecond) {
+            super(out);
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (bytesPerSecond <= 0) {
+                out.write(b, off, len);
+                return;
+            }
+
+            for (int i = off; i < off + len; i += chunkSize) {
+                int count = Math.min(chunkSize, off + len - i);
+                out.write(b, i, count);
+                written += count;
+
+                // Sleep off whatever was sent ahead of the allowed rate
+                long aheadMS = written * 1000 / bytesPerSecond - (System.nanoTime() - startTime) / 1000000;
+                sleepFor((int) aheadMS);
+            }
+        }
+    }
+}
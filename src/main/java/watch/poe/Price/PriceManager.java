@@ -8,6 +8,7 @@ import poe.Price.Bundles.EntryBundle;
 import poe.Price.Bundles.IdBundle;
 import poe.Price.Bundles.PriceBundle;
 import poe.Price.Bundles.ResultBundle;
+import poe.Utility.ExecutionMode;
 import poe.Worker.WorkerManager;
 
 import java.sql.Timestamp;
@@ -19,7 +20,7 @@ import java.util.Set;
 /**
  * The class in charge of deciding when to calculate prices and for what items
  */
-public class PriceManager extends Thread {
+public class PriceManager implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(PriceManager.class);
     private final Database database;
     private final Config config;
@@ -27,9 +28,10 @@ public class PriceManager extends Thread {
     private final Calculator calculator;
 
     // should the manager be running
-    private boolean run = true;
-    // is the manager currently running
-    private boolean readyToExit = true;
+    private volatile boolean run = true;
+    // notified when the manager is stopped
+    private final Object runMonitor = new Object();
+    private Thread thread;
 
     private long lastCycleTime;
     private Timestamp cycleStart;
@@ -42,12 +44,17 @@ public class PriceManager extends Thread {
         this.calculator = new Calculator(cnf);
     }
 
+    /**
+     * Starts the manager on a thread of the configured execution mode
+     */
+    public void start() {
+        thread = ExecutionMode.fromConfig(config).start("price-manager", this);
+    }
+
     /**
      * Main loop of the thread
      */
     public void run() {
-        readyToExit = false;
-
         // Set last time to now to avoid instant cycle activation
         lastCycleTime = System.currentTimeMillis();
 
@@ -77,29 +84,48 @@ public class PriceManager extends Thread {
             logger.info("Finished cycle");
             lastCycleTime = System.currentTimeMillis();
         }
-
-        readyToExit = true;
     }
 
     /**
-     * Checks whether main loop should run. Will sleep if minimal interval has not passed.
+     * Checks whether main loop should run. Will sleep until the minimal interval has passed if it has not.
      *
      * @return True if should run
      */
     private boolean checkIfRun() {
-        if (lastCycleTime + config.getInt("calculation.minCycleInterval") > System.currentTimeMillis()) {
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            }
+        long remaining = lastCycleTime + config.getInt("calculation.minCycleInterval") - System.currentTimeMillis();
 
+        if (remaining > 0) {
+            sleepFor(remaining);
             return false;
         }
 
         return true;
     }
 
+    /**
+     * Sleeps for the designated amount of time or until the manager is stopped
+     *
+     * @param timeMS Time in milliseconds to sleep
+     */
+    private void sleepFor(long timeMS) {
+        long end = System.currentTimeMillis() + timeMS;
+
+        synchronized (runMonitor) {
+            long remaining = timeMS;
+
+            while (run && remaining > 0) {
+                try {
+                    runMonitor.wait(remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                remaining = end - System.currentTimeMillis();
+            }
+        }
+    }
+
     /**
      * Attempt to run a cycle
      */
@@ -138,11 +164,7 @@ public class PriceManager extends Thread {
         if (!database.calc.getPriceBundles(priceBundles)) {
             logger.error("Could not get currency rates for price calculation");
 
-            try {
-                Thread.sleep(config.getInt("calculation.currencyRetryDelay"));
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            }
+            sleepFor(config.getInt("calculation.currencyRetryDelay"));
 
             return false;
         }
@@ -164,11 +186,7 @@ public class PriceManager extends Thread {
         if (!database.calc.getIdBundles(idBundles, cycleStart)) {
             logger.error("Could not get ids for price calculation");
 
-            try {
-                Thread.sleep(config.getInt("calculation.itemRetryDelay"));
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            }
+            sleepFor(config.getInt("calculation.itemRetryDelay"));
 
             return false;
         }
@@ -176,11 +194,7 @@ public class PriceManager extends Thread {
         if (idBundles.isEmpty()) {
             logger.warn("Id bundle list was empty");
 
-            try {
-                Thread.sleep(config.getInt("calculation.itemRetryDelay"));
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            }
+            sleepFor(config.getInt("calculation.itemRetryDelay"));
 
             return false;
         }
@@ -306,11 +320,7 @@ public class PriceManager extends Thread {
                 logger.debug("update took {} s", System.currentTimeMillis() / startTime / 1000);
             }
 
-            try {
-                Thread.sleep(config.getInt("calculation.itemDelay"));
-            } catch (InterruptedException ex) {
-                logger.error(ex.toString());
-            }
+            sleepFor(config.getInt("calculation.itemDelay"));
         }
     }
 
@@ -337,10 +347,17 @@ public class PriceManager extends Thread {
 
         run = false;
 
-        while (!readyToExit) try {
-            Thread.sleep(50);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
+        // Wake up the main loop if it's sleeping and wait until it has exited
+        synchronized (runMonitor) {
+            runMonitor.notifyAll();
+        }
+
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
         }
 
         logger.info("Controller stopped");
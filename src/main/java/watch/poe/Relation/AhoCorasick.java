@@ -0,0 +1,129 @@
+package poe.Relation;
+
+import java.util.*;
+
+/**
+ * Finds the longest of a fixed set of names that is contained in a string, in a single pass over the string
+ * regardless of how many names there are. The automaton is built once and is read-only afterwards, so it can be
+ * shared between threads.
+ */
+final class AhoCorasick {
+    private final Node root = new Node();
+
+    private static final class Node {
+        private final TreeMap<Character, Node> building = new TreeMap<>();
+        private char[] keys;
+        private Node[] children;
+        private Node fail;
+        // Longest name that ends at this node, directly or through its fail links
+        private String output;
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    /**
+     * Builds the automaton
+     *
+     * @param names Names to search for
+     */
+    AhoCorasick(Collection<String> names) {
+        for (String name : names) {
+            if (name == null || name.isEmpty()) {
+                continue;
+            }
+
+            Node node = root;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.building.computeIfAbsent(name.charAt(i), c -> new Node());
+            }
+
+            node.output = name;
+        }
+
+        // Freeze the children of every node into sorted arrays
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            freeze(node);
+            queue.addAll(Arrays.asList(node.children));
+        }
+
+        // Link every node to its longest proper suffix, breadth first so that shorter suffixes are linked first
+        root.fail = root;
+
+        for (Node child : root.children) {
+            child.fail = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+
+            for (int i = 0; i < node.keys.length; i++) {
+                Node child = node.children[i];
+                Node fail = node.fail;
+
+                while (fail != root && fail.child(node.keys[i]) == null) {
+                    fail = fail.fail;
+                }
+
+                Node target = fail.child(node.keys[i]);
+                child.fail = target == null || target == child ? root : target;
+
+                // A name ending here is always longer than one ending at the fail node
+                if (child.output == null) {
+                    child.output = child.fail.output;
+                }
+
+                queue.add(child);
+            }
+        }
+    }
+
+    private static void freeze(Node node) {
+        node.keys = new char[node.building.size()];
+        node.children = new Node[node.building.size()];
+
+        int i = 0;
+        for (Map.Entry<Character, Node> entry : node.building.entrySet()) {
+            node.keys[i] = entry.getKey();
+            node.children[i++] = entry.getValue();
+        }
+
+        node.building.clear();
+    }
+
+    /**
+     * Finds the longest name contained in the text. Of names with equal length, the one that appears first wins.
+     *
+     * @param text Text to search
+     * @return Longest contained name or null if there is none
+     */
+    String longestMatch(String text) {
+        Node node = root;
+        String best = null;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Node next = node.child(c);
+
+            while (next == null && node != root) {
+                node = node.fail;
+                next = node.child(c);
+            }
+
+            node = next == null ? root : next;
+
+            if (node.output != null && (best == null || node.output.length() > best.length())) {
+                best = node.output;
+            }
+        }
+
+        return best;
+    }
+}
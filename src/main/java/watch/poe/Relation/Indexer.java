@@ -4,19 +4,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import poe.Database.Database;
 import poe.Item.Item;
-import poe.Item.Key;
+import poe.Item.ItemKey;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Indexer {
     private final Logger logger = LoggerFactory.getLogger(Indexer.class);
     private final Database database;
 
-    private final Set<Key> inProgress = new HashSet<>();
-    private final Map<Key, Integer> itemData = new HashMap<>();
+    private final Set<ItemKey> inProgress = ConcurrentHashMap.newKeySet();
+    private final Map<ItemKey, Integer> itemData = new HashMap<>();
     private final Map<Integer, Set<Integer>> leagueItems = new HashMap<>();
     private final Set<Integer> reindexSet = new HashSet<>();
 
@@ -63,7 +64,7 @@ public class Indexer {
 
         // Check if item already has been indexed
         synchronized (itemData) {
-            id_d = itemData.get(item.getKey());
+            id_d = itemData.get(item.getItemKey());
         }
 
         // DB contains that item data entry and item is not scheduled for reindexing
@@ -81,19 +82,15 @@ public class Indexer {
         }
 
         // If the another thread is currently processing the same item
-        synchronized (inProgress) {
-            if (inProgress.contains(item.getKey())) {
-                return null;
-            }
-
-            inProgress.add(item.getKey());
+        if (!inProgress.add(item.getItemKey())) {
+            return null;
         }
 
         // Do not allow empty category/group definitions if they should appear
         if (item.getCategory() == null || item.getGroup() == null) {
             logger.error(String.format("Null category/group found for: %s (%s - %s)",
                     item.getKey(), item.getCategory(), item.getGroup()));
-            inProgress.remove(item.getKey());
+            inProgress.remove(item.getItemKey());
             return null;
         }
 
@@ -104,7 +101,7 @@ public class Indexer {
             if (id_d == null) {
                 logger.error(String.format("Could not create item data for: %s (%s - %s)",
                         item.getKey(), item.getCategory(), item.getGroup()));
-                inProgress.remove(item.getKey());
+                inProgress.remove(item.getItemKey());
                 return null;
             }
         }
@@ -143,16 +140,16 @@ public class Indexer {
 
         // Add entry to local lookup table
         synchronized (itemData) {
-            itemData.put(item.getKey(), id_d);
+            itemData.put(item.getItemKey(), id_d);
         }
 
         // We've verified the integrity of entries everywhere, remove the item key from the process list and return
         // its id
-        inProgress.remove(item.getKey());
+        inProgress.remove(item.getItemKey());
         return id_d;
     }
 
-    public Map<Key, Integer> getItemData() {
+    public Map<ItemKey, Integer> getItemData() {
         return itemData;
     }
 }
@@ -6,7 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import poe.Database.Database;
 import poe.Item.Category.GroupEnum;
-import poe.Item.Key;
+import poe.Item.ItemKey;
 import poe.Utility.Utility;
 
 import java.lang.reflect.Type;
@@ -21,7 +21,8 @@ public class RelationResources {
     private List<String> currencyBlackList, defaultMaps;
     private List<UniqueMap> uniqueMaps;
     private Map<String, Integer> currencyAliases;
-    private Map<GroupEnum, Set<String>> baseItems;
+    private Map<GroupEnum, AhoCorasick> baseItems;
+    private AhoCorasick defaultMapMatcher;
 
     public RelationResources(Database database, Indexer indexer) {
         this.database = database;
@@ -65,6 +66,7 @@ public class RelationResources {
         } else {
             Type type = new TypeToken<List<String>>() {}.getType();
             defaultMaps = gson.fromJson(json, type);
+            defaultMapMatcher = new AhoCorasick(defaultMaps);
         }
 
         // load unique_maps
@@ -100,13 +102,13 @@ public class RelationResources {
      * @param aliasList
      * @param itemData
      */
-    private void buildCurrencyAliasMap(List<CurrencyAlias> aliasList, Map<Key, Integer> itemData) {
+    private void buildCurrencyAliasMap(List<CurrencyAlias> aliasList, Map<ItemKey, Integer> itemData) {
         currencyAliases = new HashMap<>();
 
         // For every alias, find a matching currency item's id
         for (CurrencyAlias currencyAlias : aliasList) {
-            for (Key key : itemData.keySet()) {
-                if (key.frame == 5 && key.name.equals(currencyAlias.getName())) {
+            for (ItemKey key : itemData.keySet()) {
+                if (key.getFrame() == 5 && key.getName().equals(currencyAlias.getName())) {
                     int id = itemData.get(key);
 
                     for (String alias : currencyAlias.getAliases()) {
@@ -129,21 +131,20 @@ public class RelationResources {
     }
 
     /**
-     * Maps groups to base names
+     * Maps groups to matchers of their base names
      *
      * @param basesList
-     * @return
      */
     private void buildItemBasesMap(List<BaseItems> basesList) {
-        baseItems = new HashMap<>();
+        Map<GroupEnum, Set<String>> groupBases = new HashMap<>();
 
         for (BaseItems tmp : basesList) {
             GroupEnum group = GroupEnum.valueOf(tmp.getGroup());
-
-            Set<String> tmpSet = baseItems.getOrDefault(group, new HashSet<>());
-            tmpSet.addAll(tmp.getBases());
-            baseItems.putIfAbsent(group, tmpSet);
+            groupBases.computeIfAbsent(group, g -> new HashSet<>()).addAll(tmp.getBases());
         }
+
+        baseItems = new HashMap<>();
+        groupBases.forEach((group, bases) -> baseItems.put(group, new AhoCorasick(bases)));
     }
 
     public boolean hasCurrencyAlias(String alias) {
@@ -155,7 +156,7 @@ public class RelationResources {
     }
 
     /**
-     * Extracts item's base class from its name
+     * Extracts item's base class from its name. If several bases are contained in the name, the longest one wins
      * Eg 'Blasting Corsair Sword of Needling' -> 'Corsair Sword'
      *
      * @param group Group the item belongs to
@@ -167,30 +168,28 @@ public class RelationResources {
             return null;
         }
 
-        Set<String> baseSet = baseItems.get(group);
+        AhoCorasick matcher = baseItems.get(group);
 
-        if (baseSet == null) {
+        if (matcher == null) {
             return null;
         }
 
-        for (String base : baseSet) {
-            if (name.contains(base)) {
-                return base;
-            }
-        }
-
-        return null;
+        return matcher.longestMatch(name);
     }
 
+    /**
+     * Extracts a map's base name from its name, preferring the longest contained base
+     * Eg 'Fecund Shaped Arcade Map of Toughness' -> 'Shaped Arcade Map'
+     *
+     * @param name Item name
+     * @return Extracted name or null on failure
+     */
     public String extractMapBaseName(String name) {
         if (name == null) {
             return null;
         }
 
-        return defaultMaps.stream()
-                .filter(name::contains)
-                .findFirst()
-                .orElse(null);
+        return defaultMapMatcher.longestMatch(name);
     }
 
     public boolean isInCurrencyBlacklist(String name) {
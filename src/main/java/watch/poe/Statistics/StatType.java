@@ -2,10 +2,16 @@ package poe.Statistics;
 
 public enum StatType {
     TIME_PARSE_REPLY,
+    TIME_UPLOAD_REPLY,
+
+    COUNT_QUEUE_DECODE,
+    COUNT_QUEUE_PARSE,
+    COUNT_QUEUE_UPLOAD,
 
     TIME_API_REPLY_DOWNLOAD,
     TIME_API_TTFB,
     COUNT_REPLY_SIZE,
+    COUNT_REPLY_WIRE_SIZE,
     COUNT_API_CALLS,
 
     COUNT_API_ERRORS_READ_TIMEOUT,
@@ -17,10 +23,21 @@ public enum StatType {
     COUNT_TOTAL_STASHES,
     COUNT_TOTAL_ITEMS,
     COUNT_ACCEPTED_ITEMS,
+    COUNT_CACHED_ITEMS,
+    COUNT_UPLOADED_ITEMS,
     COUNT_ACTIVE_ACCOUNTS,
 
     COUNT_API_ERRORS_DUPLICATE,
 
+    COUNT_RIVER_LAG,
+    COUNT_RIVER_ADVANCE_RATE,
+    COUNT_RIVER_HEAD_RATE,
+    COUNT_REPLIES_PER_MINUTE,
+    TIME_NEWEST_REPLY_AGE,
+
+    TIME_RATE_LIMIT_WAIT,
+    COUNT_RATE_LIMIT_PENALTIES,
+
     APP_STARTUP,
     APP_SHUTDOWN
 }
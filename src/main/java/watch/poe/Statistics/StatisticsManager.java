@@ -20,6 +20,11 @@ public class StatisticsManager {
             new Collector(StatType.TIME_API_REPLY_DOWNLOAD,             GroupType.AVG,      TimeFrame.M_60,    null),
             new Collector(StatType.TIME_PARSE_REPLY,                    GroupType.AVG,      TimeFrame.M_60,    null),
             new Collector(StatType.TIME_API_TTFB,                       GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.TIME_UPLOAD_REPLY,                   GroupType.AVG,      TimeFrame.M_60,    null),
+
+            new Collector(StatType.COUNT_QUEUE_DECODE,                  GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_QUEUE_PARSE,                   GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_QUEUE_UPLOAD,                  GroupType.AVG,      TimeFrame.M_60,    null),
 
             new Collector(StatType.COUNT_API_ERRORS_DUPLICATE,          GroupType.SUM,      TimeFrame.M_60,    null),
             new Collector(StatType.COUNT_API_ERRORS_CONNECT_TIMEOUT,    GroupType.COUNT,    TimeFrame.M_60,    null),
@@ -28,11 +33,23 @@ public class StatisticsManager {
             new Collector(StatType.COUNT_API_ERRORS_5XX,                GroupType.COUNT,    TimeFrame.M_60,    null),
             new Collector(StatType.COUNT_API_ERRORS_4XX,                GroupType.COUNT,    TimeFrame.M_60,    null),
 
+            new Collector(StatType.COUNT_RIVER_LAG,                     GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_RIVER_ADVANCE_RATE,            GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_RIVER_HEAD_RATE,               GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_REPLIES_PER_MINUTE,            GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.TIME_NEWEST_REPLY_AGE,               GroupType.AVG,      TimeFrame.M_60,    null),
+
+            new Collector(StatType.TIME_RATE_LIMIT_WAIT,                GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_RATE_LIMIT_PENALTIES,          GroupType.COUNT,    TimeFrame.M_60,    null),
+
             new Collector(StatType.COUNT_REPLY_SIZE,                    GroupType.AVG,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_REPLY_WIRE_SIZE,               GroupType.AVG,      TimeFrame.M_60,    null),
             new Collector(StatType.COUNT_API_CALLS,                     GroupType.COUNT,    TimeFrame.M_60,    null),
             new Collector(StatType.COUNT_TOTAL_STASHES,                 GroupType.SUM,      TimeFrame.M_60,    null),
             new Collector(StatType.COUNT_TOTAL_ITEMS,                   GroupType.SUM,      TimeFrame.M_60,    null),
             new Collector(StatType.COUNT_ACCEPTED_ITEMS,                GroupType.SUM,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_CACHED_ITEMS,                  GroupType.SUM,      TimeFrame.M_60,    null),
+            new Collector(StatType.COUNT_UPLOADED_ITEMS,                GroupType.SUM,      TimeFrame.M_60,    null),
             new Collector(StatType.COUNT_ACTIVE_ACCOUNTS,               GroupType.SUM,      TimeFrame.M_60,    null),
 
             new Collector(StatType.APP_STARTUP,                         GroupType.COUNT,    TimeFrame.M_60,    null),
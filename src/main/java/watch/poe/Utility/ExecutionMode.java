@@ -0,0 +1,95 @@
+package poe.Utility;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decides what kind of threads the long-running, mostly blocking tasks (workers, managers, database uploads) are
+ * run on. Virtual threads are looked up at runtime so the app still builds for and runs on older JVMs, where it
+ * quietly falls back to platform threads.
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL;
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionMode.class);
+    private static volatile boolean warned = false;
+
+    /**
+     * Reads the mode from worker.executionMode
+     *
+     * @param cf App config
+     * @return Configured mode, platform if the value is not recognized
+     */
+    public static ExecutionMode fromConfig(Config cf) {
+        String value = cf.getString("worker.executionMode");
+
+        try {
+            return ExecutionMode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Unknown execution mode '{}', using platform threads", value);
+            return PLATFORM;
+        }
+    }
+
+    /**
+     * Creates a thread factory for this mode
+     *
+     * @param name Name given to the created threads
+     * @return Thread factory
+     */
+    public ThreadFactory factory(String name) {
+        if (this == VIRTUAL) {
+            ThreadFactory factory = virtualFactory(name);
+
+            if (factory != null) {
+                return factory;
+            }
+        }
+
+        return runnable -> new Thread(runnable, name);
+    }
+
+    /**
+     * Shorthand for creating and starting a thread
+     *
+     * @param name     Name of the thread
+     * @param runnable Task to run
+     * @return The started thread
+     */
+    public Thread start(String name, Runnable runnable) {
+        Thread thread = factory(name).newThread(runnable);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Resolves Thread.ofVirtual().name(name).factory() through reflection
+     *
+     * @param name Name given to the created threads
+     * @return Thread factory or null if virtual threads are not available on this JVM
+     */
+    private static ThreadFactory virtualFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method nameMethod = builderClass.getMethod("name", String.class);
+            Method factoryMethod = builderClass.getMethod("factory");
+
+            builder = nameMethod.invoke(builder, name);
+            return (ThreadFactory) factoryMethod.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            if (!warned) {
+                warned = true;
+                logger.warn("Virtual threads are not available on this JVM, using platform threads");
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package poe.Utility;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free interning of strings that repeat across replies (item names, base types, icons, league names,
+ * property names, etc). Every string maps to a single slot by its hash. A hit returns the canonical instance, a
+ * miss makes the new string the slot's canonical instance. Colliding strings simply evict each other, so memory
+ * use stays fixed no matter how many distinct values pass through.
+ * <p>
+ * Not meant for values that are unique per item (ids, notes, mods), which would only churn the slots.
+ */
+public final class StringPool {
+    private static final int size = 1 << 16;
+    private static final int maxLength = 256;
+    private static final AtomicReferenceArray<String> slots = new AtomicReferenceArray<>(size);
+
+    private StringPool() {
+    }
+
+    /**
+     * Returns the canonical instance of the string
+     *
+     * @param value String to intern, can be null
+     * @return Canonical instance equal to the string or the string itself
+     */
+    public static String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (size - 1);
+        String pooled = slots.get(index);
+
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+
+        slots.lazySet(index, value);
+        return value;
+    }
+}
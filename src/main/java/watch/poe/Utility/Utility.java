@@ -9,7 +9,8 @@ import java.util.zip.CRC32;
 
 public class Utility {
     private static final Logger logger = LoggerFactory.getLogger(Utility.class);
-    private static final CRC32 crc = new CRC32();
+    // CRC32 instances are not thread safe
+    private static final ThreadLocal<CRC32> crc = ThreadLocal.withInitial(CRC32::new);
 
     /**
      * Attempts to load a data file. If the operation fails, the default resource file is exported to the expected
@@ -99,6 +100,7 @@ public class Utility {
         if (str == null) {
             return 0;
         } else {
+            CRC32 crc = Utility.crc.get();
             crc.reset();
             crc.update(str.getBytes());
             return crc.getValue();
@@ -0,0 +1,180 @@
+package poe.Worker;
+
+import com.typesafe.config.Config;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Shared HTTP client for the stash API. Requests compressed replies and decompresses them transparently while they
+ * are being read. HTTP/1.1 connections are persistent by default, so the JDK's keep-alive cache reuses them between
+ * requests (subject to the http.keepAlive and http.maxConnections system properties) as long as every reply is read
+ * through and closed.
+ */
+public class ApiClient {
+    private static final int maxDrainBytes = 65536;
+    private final RateLimiter rateLimiter;
+    private final Config cf;
+
+    public ApiClient(Config cf, RateLimiter rateLimiter) {
+        this.cf = cf;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Sends a GET request and waits for the response headers
+     *
+     * @param url Full URL of the request
+     * @return Open response. Must be closed by the caller
+     * @throws IOException If the connection failed or the server returned an error status
+     */
+    public ApiResponse get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+
+        // Define timeouts: 3 sec for connecting, 10 sec for ongoing connection
+        connection.setReadTimeout(cf.getInt("worker.readTimeout"));
+        connection.setConnectTimeout(cf.getInt("worker.connectTimeout"));
+
+        connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+
+        // Blocks until the status line and headers have been received
+        int status = connection.getResponseCode();
+
+        // Follow the limits the API advertises, on both successful and failed requests
+        if (rateLimiter != null) {
+            rateLimiter.update(connection::getHeaderField, status);
+        }
+
+        if (status >= 400) {
+            // Read the error body so the connection can be reused
+            drain(connection.getErrorStream());
+            throw new ApiException(status, url);
+        }
+
+        return new ApiResponse(connection);
+    }
+
+    /**
+     * Reads and discards whatever is left in a stream, up to a limit, and closes it. The JDK only returns a
+     * connection to the keep-alive cache if its stream was consumed.
+     *
+     * @param stream Stream to drain or null
+     */
+    static void drain(InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[1024];
+            int total = 0, count;
+
+            while (total < maxDrainBytes && (count = in.read(buffer)) != -1) {
+                total += count;
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Error status returned by the API
+     */
+    public static class ApiException extends IOException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        ApiException(int status, String url) {
+            // Same message format as HttpURLConnection uses
+            super(String.format("Server returned HTTP response code: %d for URL: %s", status, url));
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * Response of a successful request
+     */
+    public static class ApiResponse implements AutoCloseable {
+        private final HttpURLConnection connection;
+        private final CountingStream wireStream;
+        private final InputStream body;
+
+        private ApiResponse(HttpURLConnection connection) throws IOException {
+            this.connection = connection;
+            this.wireStream = new CountingStream(connection.getInputStream());
+
+            String encoding = connection.getContentEncoding();
+
+            if ("gzip".equalsIgnoreCase(encoding)) {
+                body = new GZIPInputStream(wireStream, 8192);
+            } else if ("deflate".equalsIgnoreCase(encoding)) {
+                body = new InflaterInputStream(wireStream);
+            } else {
+                body = wireStream;
+            }
+        }
+
+        /**
+         * @return Decompressed response body
+         */
+        public InputStream getBody() {
+            return body;
+        }
+
+        /**
+         * @return Number of bytes received over the wire so far, before decompression
+         */
+        public int getWireBytes() {
+            return wireStream.count;
+        }
+
+        public String getHeader(String name) {
+            return connection.getHeaderField(name);
+        }
+
+        @Override
+        public void close() {
+            // Whatever the decoder did not need (eg. the gzip trailer) has to be read for the connection to be reused
+            drain(wireStream);
+
+            // Releases the decompressor
+            try {
+                body.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Counts bytes as they are read from the wire
+     */
+    private static class CountingStream extends FilterInputStream {
+        private int count = 0;
+
+        private CountingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package poe.Worker;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of reply buffers shared by the workers and the decode stage. Never blocks: if the pool is empty a new
+ * buffer is created, and buffers returned to a full pool are left to the garbage collector.
+ */
+class BufferPool {
+    private final BlockingQueue<ReplyBuffer> buffers;
+    private final int initialCapacity;
+
+    /**
+     * Default constructor
+     *
+     * @param size            Max number of idle buffers kept
+     * @param initialCapacity Capacity in bytes of newly created buffers
+     */
+    BufferPool(int size, int initialCapacity) {
+        this.buffers = new ArrayBlockingQueue<>(size);
+        this.initialCapacity = initialCapacity;
+    }
+
+    /**
+     * @return An empty buffer
+     */
+    ReplyBuffer acquire() {
+        ReplyBuffer buffer = buffers.poll();
+
+        if (buffer == null) {
+            return new ReplyBuffer(initialCapacity);
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. It must not be used afterwards.
+     *
+     * @param buffer Buffer to return or null
+     */
+    void release(ReplyBuffer buffer) {
+        if (buffer != null) {
+            buffers.offer(buffer);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package poe.Worker;
+
+/**
+ * Helpers for the numeric components of change ids. A change id (eg "345-678-912-234-567") holds one position per
+ * shard of the river, so the difference between two ids tells how many changes lie between them.
+ */
+final class ChangeId {
+    private ChangeId() {
+    }
+
+    /**
+     * Splits a change id into its numeric components
+     *
+     * @param changeId Change id
+     * @return Components or null if the id is malformed
+     */
+    static long[] parse(String changeId) {
+        if (changeId == null || changeId.isEmpty()) {
+            return null;
+        }
+
+        String[] parts = changeId.split("-");
+        long[] components = new long[parts.length];
+
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                components[i] = Long.parseLong(parts[i]);
+            }
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+
+        return components;
+    }
+
+    /**
+     * Counts the changes between two ids, summed over all shards. Shards that went backwards are ignored.
+     *
+     * @param from Older change id
+     * @param to   Newer change id
+     * @return Number of changes or -1 if the ids are malformed or have a different number of shards
+     */
+    static long distance(String from, String to) {
+        long[] a = parse(from);
+        long[] b = parse(to);
+
+        if (a == null || b == null || a.length != b.length) {
+            return -1;
+        }
+
+        long sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.max(0, b[i] - a[i]);
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,119 @@
+package poe.Worker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Finds the next_change_id field in a reply while it is still being downloaded. Bytes are fed in chunk by chunk as
+ * they arrive and the scanner keeps its state in between, so each byte is looked at only once. The callback fires as
+ * soon as the closing quote of the change id has been read.
+ */
+class ChangeIdScanner {
+    private static final byte[] fieldName = "\"next_change_id\"".getBytes(StandardCharsets.US_ASCII);
+    private static final int maxIdLength = 64;
+
+    // States after the field name has been matched
+    private static final int STATE_COLON = -1;
+    private static final int STATE_QUOTE = -2;
+    private static final int STATE_ID = -3;
+    private static final int STATE_DONE = -4;
+
+    private final Consumer<String> callback;
+    private final byte[] idBuffer = new byte[maxIdLength];
+
+    // Non-negative values are the number of field name bytes matched so far
+    private int state = 0;
+    private int idLength = 0;
+    private String changeId;
+
+    ChangeIdScanner(Consumer<String> callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Scans the next chunk of the reply
+     *
+     * @param b   Buffer holding the chunk
+     * @param off Offset of the chunk in the buffer
+     * @param len Length of the chunk
+     */
+    void update(byte[] b, int off, int len) {
+        for (int i = off; i < off + len && state != STATE_DONE; i++) {
+            update(b[i]);
+        }
+    }
+
+    /**
+     * Advances the state machine by one byte
+     *
+     * @param b Next byte of the reply
+     */
+    void update(byte b) {
+        switch (state) {
+            case STATE_DONE:
+                return;
+
+            case STATE_COLON:
+                if (b == ':') state = STATE_QUOTE;
+                else if (!isWhitespace(b)) restart(b);
+                return;
+
+            case STATE_QUOTE:
+                if (b == '"') state = STATE_ID;
+                else if (!isWhitespace(b)) restart(b);
+                return;
+
+            case STATE_ID:
+                if (b == '"' && idLength > 0) {
+                    state = STATE_DONE;
+                    changeId = new String(idBuffer, 0, idLength, StandardCharsets.US_ASCII);
+                    callback.accept(changeId);
+                } else if ((b >= '0' && b <= '9' || b == '-') && idLength < maxIdLength) {
+                    idBuffer[idLength++] = b;
+                } else {
+                    restart(b);
+                }
+                return;
+
+            default:
+                if (b == fieldName[state]) {
+                    if (++state == fieldName.length) {
+                        state = STATE_COLON;
+                    }
+                } else {
+                    restart(b);
+                }
+        }
+    }
+
+    /**
+     * Drops the current partial match. Since the quote only appears at the edges of the field name, the byte that
+     * broke the match can only be the start of a new one.
+     *
+     * @param b Byte that broke the match
+     */
+    private void restart(byte b) {
+        idLength = 0;
+        state = b == fieldName[0] ? 1 : 0;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Prepares the scanner for a new reply
+     */
+    void reset() {
+        state = 0;
+        idLength = 0;
+        changeId = null;
+    }
+
+    /**
+     * @return The change id if it has been found in the current reply, otherwise null
+     */
+    String getChangeId() {
+        return changeId;
+    }
+}
@@ -0,0 +1,79 @@
+package poe.Worker;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Single-slot hand-off of change ids from the worker that discovered them to an idle worker. The newest offered id
+ * wins and a waiting worker is woken the instant an id is offered.
+ */
+class JobExchanger {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private String changeId;
+
+    /**
+     * Offers a change id. If the slot already holds an id, the newer of the two is kept.
+     *
+     * @param newChangeId Change ID to be added
+     */
+    void offer(String newChangeId) {
+        lock.lock();
+
+        try {
+            if (changeId == null || isNewer(newChangeId, changeId)) {
+                changeId = newChangeId;
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a change id is offered or the caller no longer wants to wait. The condition is checked while
+     * holding the lock, so a state change followed by {@link #wakeAll()} is never missed.
+     *
+     * @param isWaiting Should return false once the caller should stop waiting (eg. paused or stopped)
+     * @return The change id or null if the wait was cut short
+     */
+    String take(BooleanSupplier isWaiting) {
+        lock.lock();
+
+        try {
+            while (changeId == null && isWaiting.getAsBoolean()) {
+                available.awaitUninterruptibly();
+            }
+
+            String tmp = changeId;
+            changeId = null;
+            return tmp;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes all waiting workers so they can recheck their state
+     */
+    void wakeAll() {
+        lock.lock();
+
+        try {
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compares the last numeric components of two change ids
+     *
+     * @return True if newChangeId is newer than oldChangeId
+     */
+    private static boolean isNewer(String newChangeId, String oldChangeId) {
+        return Integer.parseInt(newChangeId.substring(newChangeId.lastIndexOf('-') + 1)) >
+                Integer.parseInt(oldChangeId.substring(oldChangeId.lastIndexOf('-') + 1));
+    }
+}
@@ -0,0 +1,128 @@
+package poe.Worker;
+
+import com.google.gson.Gson;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import poe.Item.Deserializers.Reply;
+import poe.Item.Deserializers.ReplyReader;
+import poe.Item.Parser.ItemParser;
+import poe.Item.Parser.ReplyBundle;
+import poe.Statistics.StatType;
+import poe.Statistics.StatisticsManager;
+import poe.Utility.ExecutionMode;
+
+import java.io.IOException;
+
+/**
+ * Processes downloaded replies in separate stages so workers can go back to downloading the moment a reply has been
+ * received. Buffered replies go through decode, parse and upload. Streamed replies are decoded and parsed during
+ * the download and only go through upload. Each stage has its own bounded queue and threads. Decoding and parsing
+ * are CPU bound and always run on platform threads, uploads follow worker.executionMode.
+ */
+public class Pipeline {
+    private static final Logger logger = LoggerFactory.getLogger(Pipeline.class);
+    private final StatisticsManager sm;
+    private final RiverMonitor riverMonitor;
+    private final ItemParser ip;
+    private final ReplyReader replyReader;
+    private final BufferPool bufferPool;
+
+    private final Stage<ReplyBuffer> decodeStage;
+    private final Stage<Reply> parseStage;
+    private final Stage<ReplyBundle> uploadStage;
+
+    public Pipeline(Config cf, StatisticsManager sm, ItemParser ip, RiverMonitor riverMonitor) {
+        this.sm = sm;
+        this.riverMonitor = riverMonitor;
+        this.replyReader = new ReplyReader(new Gson(), ip::wantsItems);
+        this.ip = ip;
+
+        int capacity = cf.getInt("pipeline.queueSize");
+        bufferPool = new BufferPool(cf.getInt("worker.bufferPoolSize"), cf.getInt("worker.initialBufferSize") * 1024);
+
+        // Created in reverse order as each stage feeds the next
+        uploadStage = new Stage<>("upload", ExecutionMode.fromConfig(cf), cf.getInt("pipeline.uploadThreads"),
+                capacity, this::upload, sm, StatType.COUNT_QUEUE_UPLOAD);
+        parseStage = new Stage<>("parse", ExecutionMode.PLATFORM, cf.getInt("pipeline.parseThreads"),
+                capacity, this::parse, sm, StatType.COUNT_QUEUE_PARSE);
+        decodeStage = new Stage<>("decode", ExecutionMode.PLATFORM, cf.getInt("pipeline.decodeThreads"),
+                capacity, this::decode, sm, StatType.COUNT_QUEUE_DECODE);
+    }
+
+    /**
+     * @return An empty buffer to download a reply into. Goes back to the pool once the reply has been decoded, or
+     * has to be returned with releaseBuffer if the reply is not submitted
+     */
+    ReplyBuffer acquireBuffer() {
+        return bufferPool.acquire();
+    }
+
+    void releaseBuffer(ReplyBuffer buffer) {
+        bufferPool.release(buffer);
+    }
+
+    /**
+     * Queues a downloaded reply for decoding. Blocks while the decode queue is full.
+     *
+     * @param buffer Buffer holding the raw reply JSON
+     */
+    void submitReply(ReplyBuffer buffer) {
+        decodeStage.submit(buffer);
+    }
+
+    /**
+     * Queues an already parsed reply for upload. Blocks while the upload queue is full.
+     *
+     * @param bundle Bundle filled by the item parser
+     */
+    void submitBundle(ReplyBundle bundle) {
+        uploadStage.submit(bundle);
+    }
+
+    /**
+     * Finishes all queued replies and stops the stage threads. Should be called after the workers have stopped.
+     */
+    void stop() {
+        decodeStage.stop();
+        parseStage.stop();
+        uploadStage.stop();
+    }
+
+    private void decode(ReplyBuffer buffer) {
+        Reply reply;
+
+        // Decode straight from the bytes, then hand the buffer back for the next download
+        try {
+            reply = replyReader.readReply(buffer.asStream());
+        } catch (IOException ex) {
+            logger.error("Could not decode reply: " + ex.getMessage());
+            return;
+        } finally {
+            bufferPool.release(buffer);
+        }
+
+        // In the case the reply's invalid
+        if (reply == null || reply.next_change_id == null || reply.stashes == null) {
+            return;
+        }
+
+        parseStage.submit(reply);
+    }
+
+    private void parse(Reply reply) {
+        sm.startTimer(StatType.TIME_PARSE_REPLY);
+        ReplyBundle bundle = ip.parse(reply);
+        sm.clkTimer(StatType.TIME_PARSE_REPLY);
+
+        uploadStage.submit(bundle);
+    }
+
+    private void upload(ReplyBundle bundle) {
+        sm.startTimer(StatType.TIME_UPLOAD_REPLY);
+        ip.upload(bundle);
+        sm.clkTimer(StatType.TIME_UPLOAD_REPLY);
+
+        riverMonitor.markProcessed();
+    }
+}
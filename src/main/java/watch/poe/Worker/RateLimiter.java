@@ -0,0 +1,202 @@
+package poe.Worker;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import poe.Statistics.StatType;
+import poe.Statistics.StatisticsManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Token bucket shared by all workers. Implemented as a generic cell rate algorithm: the whole bucket state is a single
+ * timestamp that is advanced with compare-and-set, so reserving a request never takes a lock. The rate starts out at
+ * worker.downloadDelay and then follows the limits the API advertises in its X-Rate-Limit headers. Penalties from
+ * Retry-After headers push every worker back at once.
+ */
+public class RateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    private final StatisticsManager sm;
+    private final Config cf;
+
+    // Theoretical arrival time of the next request, in System.nanoTime() units
+    private final AtomicLong nextTime = new AtomicLong(System.nanoTime());
+    // Nanoseconds between requests at the sustained rate
+    private volatile long interval;
+    // How far ahead of the sustained rate requests may run, in nanoseconds
+    private volatile long tolerance;
+
+    public RateLimiter(Config cf, StatisticsManager sm) {
+        this.cf = cf;
+        this.sm = sm;
+
+        setRate(1, cf.getInt("worker.downloadDelay") / 1000d);
+    }
+
+    /**
+     * Blocks the calling thread until it's allowed to make the next request and records the time spent waiting
+     */
+    public void acquire() {
+        long waitTime = reserve();
+
+        if (waitTime <= 0) {
+            return;
+        }
+
+        sm.addValue(StatType.TIME_RATE_LIMIT_WAIT, (int) TimeUnit.NANOSECONDS.toMillis(waitTime));
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitTime);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reserves the next free slot without blocking
+     *
+     * @return Nanoseconds until the reserved slot
+     */
+    long reserve() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = nextTime.get();
+            long allowedAt = Math.max(now, current - tolerance);
+
+            if (nextTime.compareAndSet(current, Math.max(current, allowedAt) + interval)) {
+                return allowedAt - now;
+            }
+        }
+    }
+
+    /**
+     * Adapts to the rate limit headers of a response
+     *
+     * @param headers Header accessor of the response
+     * @param status  HTTP status code of the response
+     */
+    void update(Function<String, String> headers, int status) {
+        String rules = headers.apply("X-Rate-Limit-Rules");
+
+        if (rules != null) {
+            // The strictest window over all rules decides the rate, so a lenient rule never overrides a strict one
+            double slowestInterval = 0;
+            int fewestHits = Integer.MAX_VALUE;
+
+            for (String rule : rules.split(",")) {
+                rule = rule.trim();
+
+                // Policy windows (eg "45:60:60,240:240:900", as hits:period:penalty)
+                for (int[] window : parseWindows(headers.apply("X-Rate-Limit-" + rule))) {
+                    int hits = window[0], period = window[1];
+                    if (hits <= 0 || period <= 0) continue;
+
+                    slowestInterval = Math.max(slowestInterval, (double) period / hits);
+                    fewestHits = Math.min(fewestHits, hits);
+                }
+
+                // Honour any penalty the current state reports (eg "1:60:0,1:240:0")
+                for (int[] window : parseWindows(headers.apply("X-Rate-Limit-" + rule + "-State"))) {
+                    if (window[2] > 0) {
+                        penalize(window[2]);
+                    }
+                }
+            }
+
+            if (slowestInterval > 0) {
+                setRate(fewestHits, slowestInterval);
+            }
+        }
+
+        String retryAfter = headers.apply("Retry-After");
+
+        if (retryAfter != null || status == 429) {
+            penalize(parseInt(retryAfter, cf.getInt("worker.lockTimeout") / 1000));
+        }
+    }
+
+    /**
+     * Splits a rate limit header value into its windows
+     *
+     * @param value Header value (eg "45:60:60,240:240:900") or null
+     * @return Windows as [hits, period, penalty], missing or invalid parts are 0
+     */
+    private static List<int[]> parseWindows(String value) {
+        List<int[]> windows = new ArrayList<>();
+
+        if (value == null) {
+            return windows;
+        }
+
+        for (String window : value.split(",")) {
+            String[] parts = window.trim().split(":");
+            if (parts.length < 2) continue;
+
+            windows.add(new int[]{
+                    parseInt(parts[0], 0),
+                    parseInt(parts[1], 0),
+                    parts.length > 2 ? parseInt(parts[2], 0) : 0
+            });
+        }
+
+        return windows;
+    }
+
+    /**
+     * Sets the sustained rate and burst size, with the configured safety margin applied
+     *
+     * @param hits          Max number of requests in a burst
+     * @param secondsPerHit Seconds between requests at the sustained rate
+     */
+    private void setRate(int hits, double secondsPerHit) {
+        long newInterval = (long) (secondsPerHit * cf.getDouble("worker.rateLimitMargin") * 1e9);
+        int burst = Math.max(1, Math.min(hits, cf.getInt("worker.rateLimitBurst")));
+        long newTolerance = (burst - 1) * newInterval;
+
+        if (newInterval != interval || newTolerance != tolerance) {
+            logger.info("Rate limit set to 1 request per {} ms (burst {})",
+                    TimeUnit.NANOSECONDS.toMillis(newInterval), burst);
+
+            interval = newInterval;
+            tolerance = newTolerance;
+        }
+    }
+
+    /**
+     * Delays all further requests
+     *
+     * @param seconds Length of the penalty
+     */
+    private void penalize(int seconds) {
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long current;
+
+        do {
+            current = nextTime.get();
+
+            // Already delayed enough
+            if (current - tolerance >= until) {
+                return;
+            }
+        } while (!nextTime.compareAndSet(current, until + tolerance));
+
+        logger.warn("Rate limited by the API, pausing requests for {} sec", seconds);
+        sm.addValue(StatType.COUNT_RATE_LIMIT_PENALTIES, null);
+    }
+
+    private static int parseInt(String value, int fallback) {
+        if (value == null) {
+            return fallback;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package poe.Worker;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import poe.Item.Deserializers.Reply;
+import poe.Item.Deserializers.ReplyReader;
+import poe.Item.Parser.ItemParser;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Feeds replies recorded by {@link ReplyRecorder} back through the item parser, as fast as it can. Used for
+ * backfilling after outages and for benchmarking the ingest path without network access.
+ */
+public class ReplaySource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplaySource.class);
+    private final ReplyReader replyReader;
+    private final ItemParser ip;
+
+    private int replyCount;
+    private long byteCount;
+
+    public ReplaySource(ItemParser ip) {
+        this.ip = ip;
+        this.replyReader = new ReplyReader(new Gson(), ip::wantsItems);
+    }
+
+    /**
+     * Replays a single segment or all segments in a directory, oldest first
+     *
+     * @param location Segment file or directory containing segments
+     * @return True on success
+     */
+    public boolean replay(String location) {
+        Path path = Paths.get(location);
+        List<Path> segments;
+
+        try {
+            segments = findSegments(path);
+        } catch (IOException ex) {
+            logger.error("Could not list segments in " + path, ex);
+            return false;
+        }
+
+        if (segments.isEmpty()) {
+            logger.error("No segments found in {}", path);
+            return false;
+        }
+
+        replyCount = 0;
+        byteCount = 0;
+        long startTime = System.currentTimeMillis();
+
+        for (Path segment : segments) {
+            if (!replaySegment(segment)) {
+                return false;
+            }
+        }
+
+        long time = Math.max(1, System.currentTimeMillis() - startTime);
+        logger.info("Replayed {} replies ({} MB) from {} segments in {} sec ({} replies/sec, {} MB/sec)",
+                replyCount,
+                byteCount / 1048576,
+                segments.size(),
+                time / 1000,
+                String.format("%.1f", replyCount * 1000d / time),
+                String.format("%.1f", byteCount * 1000d / 1048576 / time));
+
+        return true;
+    }
+
+    /**
+     * @param path Segment file or directory
+     * @return Segment files sorted by name, which sorts them by creation time
+     * @throws IOException If the directory could not be listed
+     */
+    public static List<Path> findSegments(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return Files.exists(path) ? List.of(path) : List.of();
+        }
+
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(ReplyRecorder.segmentSuffix))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Parses all replies in a segment. A segment cut short by a crash is read up to its last complete reply.
+     *
+     * @param segment Segment file
+     * @return False on read errors
+     */
+    private boolean replaySegment(Path segment) {
+        logger.info("Replaying {}", segment.getFileName());
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(segment)), 65536))) {
+            byte[] buffer = new byte[0];
+
+            while (true) {
+                String changeId;
+                int length;
+
+                try {
+                    changeId = in.readUTF();
+                    length = in.readInt();
+
+                    // Grow the buffer to fit the largest reply seen so far
+                    if (buffer.length < length) {
+                        buffer = new byte[length];
+                    }
+
+                    in.readFully(buffer, 0, length);
+                } catch (EOFException ex) {
+                    return true;
+                }
+
+                Reply reply;
+
+                try {
+                    reply = replyReader.readReply(new ByteArrayInputStream(buffer, 0, length));
+                } catch (IOException | RuntimeException ex) {
+                    logger.warn("Skipping invalid reply {}", changeId);
+                    continue;
+                }
+
+                ip.process(reply);
+
+                replyCount++;
+                byteCount += length;
+            }
+        } catch (IOException ex) {
+            logger.error("Could not read segment " + segment, ex);
+            return false;
+        }
+    }
+}
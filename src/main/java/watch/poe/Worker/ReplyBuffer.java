@@ -0,0 +1,56 @@
+package poe.Worker;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer holding a raw reply. Meant to be reused through {@link BufferPool}: once a buffer has grown to
+ * the size of a typical reply, downloading into it no longer allocates.
+ */
+class ReplyBuffer {
+    private byte[] data;
+    private int length;
+
+    ReplyBuffer(int capacity) {
+        this.data = new byte[capacity];
+    }
+
+    /**
+     * Reads the next chunk from the stream straight into the buffer, growing it if it's full
+     *
+     * @param in      Stream to read from
+     * @param maxRead Max number of bytes to read
+     * @return Number of bytes read or -1 at the end of the stream
+     * @throws IOException If reading failed
+     */
+    int readFrom(InputStream in, int maxRead) throws IOException {
+        if (length == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+
+        int count = in.read(data, length, Math.min(maxRead, data.length - length));
+
+        if (count > 0) {
+            length += count;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return Stream over the contents, without copying them
+     */
+    InputStream asStream() {
+        return new ByteArrayInputStream(data, 0, length);
+    }
+
+    void clear() {
+        length = 0;
+    }
+
+    int getLength() {
+        return length;
+    }
+}
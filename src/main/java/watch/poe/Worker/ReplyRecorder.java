@@ -0,0 +1,101 @@
+package poe.Worker;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes raw stash API replies to a segmented, gzip compressed log on disk so they can later be fed back through the
+ * parser by {@link ReplaySource}. A segment is named after the time it was created and the change id of its first
+ * reply, so sorting the file names sorts the replies. Each record is the change id the reply was requested with,
+ * the reply's length and its raw bytes.
+ */
+public class ReplyRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(ReplyRecorder.class);
+    static final String segmentSuffix = ".seg.gz";
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private DataOutputStream out;
+    private long segmentBytes;
+
+    /**
+     * Default constructor
+     *
+     * @param cf App config
+     */
+    public ReplyRecorder(Config cf) {
+        this.directory = Paths.get(cf.getString("recorder.path"));
+        this.segmentSize = cf.getLong("recorder.segmentSize") * 1024 * 1024;
+    }
+
+    /**
+     * Appends a reply to the current segment, starting a new segment if the current one is full. Errors are logged
+     * and the reply is dropped, recording never interrupts the worker.
+     *
+     * @param changeId Change id the reply was requested with
+     * @param reply    Buffer holding the raw reply
+     */
+    public synchronized void record(String changeId, ByteArrayOutputStream reply) {
+        try {
+            if (out == null || segmentBytes >= segmentSize) {
+                openSegment(changeId);
+            }
+
+            out.writeUTF(changeId);
+            out.writeInt(reply.size());
+            reply.writeTo(out);
+
+            segmentBytes += reply.size();
+        } catch (IOException ex) {
+            logger.error("Could not record reply " + changeId, ex);
+            closeSegment();
+        }
+    }
+
+    /**
+     * Finishes the current segment
+     */
+    public synchronized void close() {
+        closeSegment();
+    }
+
+    /**
+     * Closes the current segment and opens a new one
+     *
+     * @param changeId Change id of the segment's first reply
+     * @throws IOException If the file could not be created
+     */
+    private void openSegment(String changeId) throws IOException {
+        closeSegment();
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve(System.currentTimeMillis() + "_" + changeId + segmentSuffix);
+
+        out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 65536));
+        segmentBytes = 0;
+
+        logger.info("Recording replies to {}", file);
+    }
+
+    private void closeSegment() {
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.close();
+        } catch (IOException ex) {
+            logger.error("Could not close reply segment", ex);
+        }
+
+        out = null;
+    }
+}
@@ -0,0 +1,60 @@
+package poe.Worker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Wraps the stash API's decompressed input stream. Counts bytes read and feeds the change id scanner as data passes
+ * through, regardless of whether the reply is buffered or decoded straight off the stream. Optionally keeps a copy
+ * of the raw reply for the reply recorder.
+ */
+class ReplyStream extends FilterInputStream {
+    private final ChangeIdScanner scanner;
+    private final ByteArrayOutputStream capture;
+    private int byteCount = 0;
+
+    /**
+     * Default constructor
+     *
+     * @param in      Decompressed reply stream
+     * @param scanner Scanner to feed
+     * @param capture Buffer to copy all read bytes to or null
+     */
+    ReplyStream(InputStream in, ChangeIdScanner scanner, ByteArrayOutputStream capture) {
+        super(in);
+        this.scanner = scanner;
+        this.capture = capture;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+
+        if (b != -1) {
+            byteCount++;
+            scanner.update((byte) b);
+            if (capture != null) capture.write(b);
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+
+        if (n > 0) {
+            byteCount += n;
+            scanner.update(b, off, n);
+            if (capture != null) capture.write(b, off, n);
+        }
+
+        return n;
+    }
+
+    int getByteCount() {
+        return byteCount;
+    }
+}
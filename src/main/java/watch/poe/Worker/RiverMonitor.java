@@ -0,0 +1,150 @@
+package poe.Worker;
+
+import com.typesafe.config.Config;
+import poe.Statistics.StatType;
+import poe.Statistics.StatisticsManager;
+
+/**
+ * Estimates how far behind the head of the river the workers are. Workers report every reply whose next change id
+ * was found, and the worker manager closes a measurement window about once a minute.
+ * <p>
+ * Duplicate replies (next change id equal to the requested one) only happen at the head, and the rate at which
+ * change ids advance there is the head rate. Replies at the head are also small, while replies that are full
+ * mean there's a backlog. While behind, the lag grows by the head rate and shrinks by the workers' own rate.
+ */
+class RiverMonitor {
+    private static final double smoothing = 0.3;
+    private final Config cf;
+
+    // Counters of the current window
+    private long windowStart = System.currentTimeMillis();
+    private int replyCount, duplicateCount;
+    private long replyBytes, advance;
+
+    // Results of the last closed window
+    private boolean atHead, behind;
+    private double replyRate, advanceRate, headRate, lag;
+
+    // When the last reply finished uploading, 0 if none has
+    private volatile long lastProcessedTime;
+
+    RiverMonitor(Config cf) {
+        this.cf = cf;
+    }
+
+    /**
+     * Records a reply
+     *
+     * @param job          Change id the reply was requested with
+     * @param nextChangeId Next change id found in the reply
+     * @param bytes        Size of the reply
+     * @param duplicate    True if the reply was a duplicate
+     */
+    synchronized void record(String job, String nextChangeId, int bytes, boolean duplicate) {
+        replyCount++;
+
+        if (duplicate) {
+            duplicateCount++;
+            return;
+        }
+
+        replyBytes += bytes;
+
+        long distance = ChangeId.distance(job, nextChangeId);
+        if (distance > 0) advance += distance;
+    }
+
+    /**
+     * Called once a reply has been fully parsed and uploaded
+     */
+    void markProcessed() {
+        lastProcessedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds the estimates of the last closed window to the statistics
+     *
+     * @param sm Statistics manager
+     */
+    synchronized void addStatistics(StatisticsManager sm) {
+        sm.addValue(StatType.COUNT_RIVER_LAG, (int) Math.min(Integer.MAX_VALUE, (long) lag));
+        sm.addValue(StatType.COUNT_RIVER_ADVANCE_RATE, (int) advanceRate);
+        sm.addValue(StatType.COUNT_RIVER_HEAD_RATE, (int) headRate);
+        sm.addValue(StatType.COUNT_REPLIES_PER_MINUTE, (int) replyRate);
+
+        if (lastProcessedTime > 0) {
+            sm.addValue(StatType.TIME_NEWEST_REPLY_AGE, (int) (System.currentTimeMillis() - lastProcessedTime));
+        }
+    }
+
+    /**
+     * Closes the current window and updates the estimates
+     */
+    synchronized void evaluate() {
+        long now = System.currentTimeMillis();
+        double minutes = Math.max(1, now - windowStart) / 60000d;
+        int fullReplySize = cf.getInt("autoscale.fullReplySize") * 1024;
+        int uniqueCount = replyCount - duplicateCount;
+        long avgSize = uniqueCount == 0 ? 0 : replyBytes / uniqueCount;
+
+        replyRate = replyCount / minutes;
+        advanceRate = advance / minutes;
+
+        atHead = duplicateCount > 0 || replyCount > 0 && avgSize < fullReplySize / 2;
+        behind = !atHead && uniqueCount > 0 && avgSize >= fullReplySize;
+
+        if (duplicateCount > 0) {
+            // Own rate equals the head rate while at the head
+            headRate = headRate == 0 ? advanceRate : headRate + smoothing * (advanceRate - headRate);
+            lag = 0;
+        } else if (headRate > 0) {
+            lag = Math.max(0, lag + (headRate - advanceRate) * minutes);
+        }
+
+        windowStart = now;
+        replyCount = duplicateCount = 0;
+        replyBytes = advance = 0;
+    }
+
+    /**
+     * @return True if the last window suggests the workers are at the head of the river
+     */
+    synchronized boolean isAtHead() {
+        return atHead;
+    }
+
+    /**
+     * @return True if the last window suggests the workers are behind the head of the river
+     */
+    synchronized boolean isBehind() {
+        return behind;
+    }
+
+    /**
+     * @return Estimated number of changes the workers are behind the head, 0 if unknown
+     */
+    synchronized long getLag() {
+        return (long) lag;
+    }
+
+    /**
+     * @return Estimated number of changes per minute at the head of the river, 0 if unknown
+     */
+    synchronized long getHeadRate() {
+        return (long) headRate;
+    }
+
+    /**
+     * @return Number of changes per minute the workers advanced in the last window
+     */
+    synchronized long getAdvanceRate() {
+        return (long) advanceRate;
+    }
+
+    /**
+     * @return Number of replies per minute in the last window
+     */
+    synchronized int getReplyRate() {
+        return (int) replyRate;
+    }
+}
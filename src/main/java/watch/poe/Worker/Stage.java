@@ -0,0 +1,129 @@
+package poe.Worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import poe.Statistics.StatType;
+import poe.Statistics.StatisticsManager;
+import poe.Utility.ExecutionMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * One step of the reply pipeline. Has its own bounded queue and pool of threads that take tasks off the queue and
+ * hand them to the stage's handler. Submitting to a full queue blocks, which slows down the previous stage instead
+ * of letting replies pile up in memory.
+ *
+ * @param <T> Type of task the stage works on
+ */
+class Stage<T> {
+    private static final Logger logger = LoggerFactory.getLogger(Stage.class);
+
+    private final String name;
+    // Queued after all other tasks on stop, one per thread. Each thread exits when it takes one
+    private static final Object stopTask = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private final Consumer<T> handler;
+    private final StatisticsManager sm;
+    private final StatType depthStat;
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * Default constructor
+     *
+     * @param name      Name of the stage, used for thread names
+     * @param mode      Kind of threads to run the stage on
+     * @param threads   Number of threads working on the queue
+     * @param capacity  Max number of tasks waiting in the queue
+     * @param handler   Called for every task
+     * @param sm
+     * @param depthStat Statistic the queue depth is recorded as whenever a task is submitted
+     */
+    Stage(String name, ExecutionMode mode, int threads, int capacity, Consumer<T> handler,
+          StatisticsManager sm, StatType depthStat) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.sm = sm;
+        this.depthStat = depthStat;
+
+        for (int i = 0; i < threads; i++) {
+            this.threads.add(mode.start(String.format("%s-%d", name, i), this::work));
+        }
+    }
+
+    /**
+     * Adds a task to the queue, waiting for free space if the stage is falling behind
+     *
+     * @param task Task to be added
+     */
+    void submit(T task) {
+        sm.addValue(depthStat, queue.size());
+
+        try {
+            queue.put(task);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while submitting to stage {}, task dropped", name);
+        }
+    }
+
+    /**
+     * Main loop of a stage thread
+     */
+    @SuppressWarnings("unchecked")
+    private void work() {
+        while (true) {
+            Object task;
+
+            try {
+                task = queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if (task == stopTask) {
+                break;
+            }
+
+            try {
+                handler.accept((T) task);
+            } catch (Exception ex) {
+                // A bad task must not take the stage down with it
+                logger.error("Caught exception in stage " + name, ex);
+            }
+        }
+    }
+
+    /**
+     * Lets the threads finish all queued tasks and waits until they have stopped. Nothing may be submitted after
+     * this has been called.
+     */
+    void stop() {
+        // Tasks are taken in order, so everything queued before the stop tasks is still handled
+        for (int i = 0; i < threads.size(); i++) {
+            try {
+                queue.put(stopTask);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while stopping stage {}", name);
+                return;
+            }
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        logger.info("Stage {} stopped", name);
+    }
+}
@@ -5,24 +5,25 @@ import com.typesafe.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import poe.Database.Database;
-import poe.Item.Deserializers.Reply;
+import poe.Item.Deserializers.ReplyReader;
+import poe.Item.Deserializers.Stash;
 import poe.Item.Parser.ItemParser;
+import poe.Item.Parser.ReplyBundle;
 import poe.Statistics.StatType;
 import poe.Statistics.StatisticsManager;
+import poe.Utility.ExecutionMode;
+import poe.Worker.ApiClient.ApiResponse;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Downloads and processes a batch of data downloaded from the PoE API. Runs in a separate thread.
+ * Downloads and processes a batch of data downloaded from the PoE API. Runs in a separate thread, which is a
+ * virtual thread if worker.executionMode says so.
  */
-public class Worker extends Thread {
+public class Worker implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(Worker.class);
-    private static final Pattern changeIdPattern = Pattern.compile("\\d+(-\\d+){4}");
     private static final Pattern exceptionPattern5xx = Pattern.compile("^.+ 5\\d\\d .+$");
     private static final Pattern exceptionPattern4xx = Pattern.compile("^.+ 4\\d\\d .+$");
 
@@ -31,23 +32,44 @@ public class Worker extends Thread {
     private final ItemParser ip;
     private final Database db;
     private final Config cf;
+    private final ApiClient client;
+    private final int bufferSize;
 
     private final Object pauseMonitor = new Object();
-    private final Object jobMonitor = new Object();
     private final Gson gson = new Gson();
+    private final ReplyReader replyReader;
+    private final ChangeIdScanner changeIdScanner = new ChangeIdScanner(this::onChangeId);
 
-    private String job;
+    private Thread thread;
+    private volatile String job;
     private int currentJobNr;
     private int workerId;
 
+    // has the next change id been found in the current reply
+    private boolean changeIdFound;
+    // next change id found in the current reply
+    private String nextChangeId;
+    // was the current reply's next change id equal to the job's change id
+    private boolean duplicate;
+    // items parsed from the reply that's currently being streamed
+    private ReplyBundle bundle;
+    // nanoseconds spent parsing the reply that's currently being streamed
+    private long parseTime;
+    // response that's currently being downloaded
+    private ApiResponse response;
+    // raw copy of the current reply, only used while recording
+    private ByteArrayOutputStream captureBuffer;
+
     // should the worker be running
-    private boolean run = true;
+    private volatile boolean run = true;
+    // should the worker stop once its current job is done
+    private volatile boolean retire = false;
     // is the worker currently running
-    private boolean isRunning = true;
+    private volatile boolean isRunning = true;
     // should the worker be paused
-    private boolean pause = false;
+    private volatile boolean pause = false;
     // is the worker currently paused
-    private boolean isPaused = false;
+    private volatile boolean isPaused = false;
 
     /**
      * Default constructor
@@ -58,14 +80,40 @@ public class Worker extends Thread {
      * @param ip
      * @param db
      * @param cf
+     * @param client
      */
-    public Worker(int id, WorkerManager wm, StatisticsManager sm, ItemParser ip, Database db, Config cf) {
+    public Worker(int id, WorkerManager wm, StatisticsManager sm, ItemParser ip, Database db, Config cf, ApiClient client) {
         this.workerId = id;
         this.wm = wm;
         this.sm = sm;
         this.ip = ip;
         this.db = db;
         this.cf = cf;
+        this.client = client;
+        this.bufferSize = cf.getInt("worker.bufferSize");
+        this.replyReader = new ReplyReader(gson, ip::wantsItems);
+    }
+
+    /**
+     * Starts the worker on a thread of the configured execution mode
+     */
+    public void start() {
+        thread = ExecutionMode.fromConfig(cf).start("worker-" + workerId, this);
+    }
+
+    /**
+     * Waits until the worker's thread has finished. Should be called after requestStop.
+     */
+    public void join() {
+        if (thread == null) {
+            return;
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
@@ -73,27 +121,30 @@ public class Worker extends Thread {
      * Checks for new jobs and processes them.
      */
     public void run() {
-        while (run) {
-            // Wait on monitor until notified and a new job is given
+        while (run && !retire) {
+            // Wait until a new job is given
             waitForJob();
 
+            // Woken up without a job because the worker was stopped
+            if (job == null) continue;
+
             //logger.debug("Worker {} starting job {} ({})", workerId, currentJobNr, job);
 
             // Increment api call counter
             sm.addValue(StatType.COUNT_API_CALLS, null);
 
-            // Download JSON reply from stash API
-            Reply reply = download();
-
-            if (reply != null) {
-                // Start a timer for total process time
-                sm.startTimer(StatType.TIME_PARSE_REPLY);
-
-                // Hand it over to item parser to deal with
-                ip.process(reply);
-
-                // End the timer
-                sm.clkTimer(StatType.TIME_PARSE_REPLY);
+            if (cf.getBoolean("worker.streamingDecode")) {
+                // Download, decode and parse the reply at the same time
+                streamReply();
+            } else {
+                // Download JSON reply from stash API
+                ReplyBuffer buffer = download();
+
+                // Hand it over to the pipeline to decode, parse and upload
+                if (buffer != null) {
+                    record();
+                    wm.getPipeline().submitReply(buffer);
+                }
             }
 
             // If worker should be paused
@@ -106,6 +157,23 @@ public class Worker extends Thread {
 
         logger.info("Worker {} stopped", workerId);
         isRunning = false;
+
+        // Notify anyone waiting for the worker to pause
+        synchronized (pauseMonitor) {
+            pauseMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Requests the worker to stop once it has finished its current job
+     */
+    public void requestRetire() {
+        retire = true;
+
+        // Notify pause monitor in case the worker is paused
+        synchronized (pauseMonitor) {
+            pauseMonitor.notifyAll();
+        }
     }
 
     /**
@@ -114,142 +182,237 @@ public class Worker extends Thread {
     public void requestStop() {
         run = false;
 
-        // Notify job monitor
-        synchronized (jobMonitor) {
-            jobMonitor.notify();
+        // Notify pause monitor in case the worker is paused
+        synchronized (pauseMonitor) {
+            pauseMonitor.notifyAll();
         }
     }
 
     /**
-     * Beefy method for downloading data from the stash API.
+     * Beefy method for downloading data from the stash API. Reads straight into a pooled buffer, so once the pool
+     * has warmed up a download allocates next to nothing.
      *
-     * @return Valid stash api reply or null
+     * @return Buffer holding the raw reply JSON or null
      */
-    private Reply download() {
-        StringBuilder jsonBuffer = new StringBuilder();
-        byte[] byteBuffer = new byte[cf.getInt("worker.bufferSize")];
-        boolean regexLock = true;
-        boolean gotFirstByte = false;
-        InputStream stream = null;
-        int byteCount, totalByteCount = 0;
-
-        // Sleep for x milliseconds
-        while (System.currentTimeMillis() - wm.getLastPullTime() < cf.getInt("worker.downloadDelay")) {
-            sleepFor((int) (cf.getInt("worker.downloadDelay") - System.currentTimeMillis() + wm.getLastPullTime()));
+    private ReplyBuffer download() {
+        ReplyBuffer buffer = wm.getPipeline().acquireBuffer();
+        ReplyStream stream = null;
+
+        try {
+            stream = openStream();
+
+            // Stream data into the buffer
+            while (buffer.readFrom(stream, bufferSize) != -1) {
+                // Check if run flag is lowered or the change id scanner found that this reply has already been
+                // downloaded
+                if (!run || duplicate) {
+                    wm.getPipeline().releaseBuffer(buffer);
+                    return null;
+                }
+            }
+        } catch (Exception ex) {
+            wm.getPipeline().releaseBuffer(buffer);
+            handleDownloadError(ex);
+            return null;
+        } finally {
+            closeStream(stream);
         }
 
-        wm.setLastPullTime();
+        return buffer;
+    }
+
+    /**
+     * Downloads a reply from the stash API and decodes it straight off the socket. Every stash is handed over to
+     * the item parser as soon as it has been decoded, so only about one stash is kept in memory at a time and
+     * parsing overlaps with the download. The parsed reply is then queued for upload.
+     */
+    private void streamReply() {
+        ReplyStream stream = null;
+        String changeId;
+
+        bundle = new ReplyBundle();
+        parseTime = 0;
 
         try {
-            sm.startTimer(StatType.TIME_API_REPLY_DOWNLOAD);
+            stream = openStream();
+            changeId = replyReader.read(stream, this::onReplyChangeId, this::onStash);
+        } catch (Exception ex) {
+            handleDownloadError(ex);
+            return;
+        } finally {
+            closeStream(stream);
+        }
+
+        // Reply was a duplicate, invalid or the worker was stopped. Discard everything parsed so far
+        if (changeId == null) {
+            bundle = null;
+            return;
+        }
 
-            // Define the request
-            URL request = new URL("http://www.pathofexile.com/api/public-stash-tabs?id=" + this.job);
-            HttpURLConnection connection = (HttpURLConnection) request.openConnection();
+        sm.addValue(StatType.TIME_PARSE_REPLY, (int) (parseTime / 1000000));
 
-            // Define timeouts: 3 sec for connecting, 10 sec for ongoing connection
-            connection.setReadTimeout(cf.getInt("worker.readTimeout"));
-            connection.setConnectTimeout(cf.getInt("worker.connectTimeout"));
+        record();
+        wm.getPipeline().submitBundle(bundle);
+        bundle = null;
+    }
 
-            sm.startTimer(StatType.TIME_API_TTFB);
+    /**
+     * Waits until the shared rate limiter allows the next request, then opens a connection to the stash API
+     *
+     * @return Stream of the reply
+     * @throws IOException If the connection could not be established
+     */
+    private ReplyStream openStream() throws IOException {
+        // Sleep until a request slot is free
+        wm.getRateLimiter().acquire();
 
-            // Define the streamer (used for reading in chunks)
-            stream = connection.getInputStream();
+        changeIdScanner.reset();
+        changeIdFound = false;
+        nextChangeId = null;
+        duplicate = false;
 
-            // Stream data and count bytes
-            while ((byteCount = stream.read(byteBuffer, 0, cf.getInt("worker.bufferSize"))) != -1) {
-                if (!gotFirstByte) {
-                    sm.clkTimer(StatType.TIME_API_TTFB);
-                    gotFirstByte = true;
-                }
+        sm.startTimer(StatType.TIME_API_REPLY_DOWNLOAD);
+        sm.startTimer(StatType.TIME_API_TTFB);
 
-                // Check if run flag is lowered
-                if (!run) return null;
+        try {
+            // Blocks until the response headers have arrived
+            response = client.get(cf.getString("api.stashUrl") + "?id=" + this.job);
+        } finally {
+            sm.clkTimer(StatType.TIME_API_TTFB);
+        }
 
-                totalByteCount += byteCount;
+        // Keep a copy of the raw reply if replies are being recorded
+        ByteArrayOutputStream capture = null;
+        if (wm.getRecorder() != null) {
+            if (captureBuffer == null) {
+                captureBuffer = new ByteArrayOutputStream(4 * 1024 * 1024);
+            }
 
-                // Check if byte has <CHUNK_SIZE> amount of elements (the first request does not)
-                if (byteCount != cf.getInt("worker.bufferSize")) {
-                    byte[] trimmedByteBuffer = new byte[byteCount];
-                    System.arraycopy(byteBuffer, 0, trimmedByteBuffer, 0, byteCount);
+            captureBuffer.reset();
+            capture = captureBuffer;
+        }
 
-                    // Trim byteBuffer, convert it into string and add to string buffer
-                    jsonBuffer.append(new String(trimmedByteBuffer));
-                } else {
-                    jsonBuffer.append(new String(byteBuffer));
-                }
+        // Define the streamer (used for reading in chunks)
+        return new ReplyStream(response.getBody(), changeIdScanner, capture);
+    }
 
-                // Try to find new job number using regex
-                if (regexLock) {
-                    Matcher matcher = changeIdPattern.matcher(jsonBuffer.toString());
+    /**
+     * Writes the raw copy of the current reply to the reply recorder, if recording is enabled
+     */
+    private void record() {
+        if (wm.getRecorder() != null && captureBuffer != null) {
+            wm.getRecorder().record(job, captureBuffer);
+        }
+    }
 
-                    if (matcher.find()) {
-                        regexLock = false;
+    /**
+     * Closes the reply stream and records download statistics
+     *
+     * @param stream Stream returned by openStream or null
+     */
+    private void closeStream(ReplyStream stream) {
+        int wireBytes = 0;
 
-                        // Add new-found job to queue
-                        wm.setNextChangeID(matcher.group());
+        if (response != null) {
+            wireBytes = response.getWireBytes();
+            response.close();
+            response = null;
+        }
 
-                        // Update db change id entry
-                        db.upload.updateChangeID(matcher.group());
+        sm.clkTimer(StatType.TIME_API_REPLY_DOWNLOAD);
+        sm.addValue(StatType.COUNT_REPLY_SIZE, stream == null ? 0 : stream.getByteCount());
+        sm.addValue(StatType.COUNT_REPLY_WIRE_SIZE, wireBytes);
 
-                        // If new changeID is equal to the previous changeID, it has already been downloaded
-                        if (matcher.group().equals(job)) {
-                            sm.addValue(StatType.COUNT_API_ERRORS_DUPLICATE, 1);
-                            return null;
-                        }
-                    }
-                }
-            }
-        } catch (Exception ex) {
-            // Very professional exception logging
-            if (ex.getMessage().contains("Read timed out")) {
-                sm.addValue(StatType.COUNT_API_ERRORS_READ_TIMEOUT, null);
-            } else if (ex.getMessage().contains("connect timed out")) {
-                sm.addValue(StatType.COUNT_API_ERRORS_CONNECT_TIMEOUT, null);
-            } else if (ex.getMessage().contains("Connection reset")) {
-                sm.addValue(StatType.COUNT_API_ERRORS_CONN_RESET, null);
-            } else if (exceptionPattern5xx.matcher(ex.getMessage()).matches()) {
-                sm.addValue(StatType.COUNT_API_ERRORS_5XX, null);
-            } else if (exceptionPattern4xx.matcher(ex.getMessage()).matches()) {
-                sm.addValue(StatType.COUNT_API_ERRORS_4XX, null);
-            }
+        // Let the river monitor know how far this reply advanced
+        if (changeIdFound) {
+            wm.getRiverMonitor().record(job, nextChangeId, stream == null ? 0 : stream.getByteCount(), duplicate);
+        }
+    }
 
-            logger.error("Caught worker download error: " + ex.getMessage());
+    /**
+     * Called by the change id scanner as soon as the next change id has been read from the connection, long before
+     * the rest of the reply has arrived
+     *
+     * @param changeId The next change id
+     */
+    private void onChangeId(String changeId) {
+        changeIdFound = true;
+        nextChangeId = changeId;
 
-            // Add old change id back to the pool only if a new one hasn't been found
-            if (regexLock) {
-                sleepFor(cf.getInt("worker.lockTimeout"));
-                wm.setNextChangeID(job);
-            }
+        // Add new-found job to queue
+        wm.setNextChangeID(changeId);
 
-            return null;
-        } finally {
-            try {
-                if (stream != null) {
-                    stream.close();
-                }
-            } catch (IOException ex) {
-                logger.error(ex.getMessage(), ex);
-            }
+        // Update db change id entry
+        db.upload.updateChangeID(changeId);
 
-            if (!gotFirstByte) {
-                sm.clkTimer(StatType.TIME_API_TTFB);
-            }
+        // If new changeID is equal to the previous changeID, it has already been downloaded
+        if (changeId.equals(job)) {
+            sm.addValue(StatType.COUNT_API_ERRORS_DUPLICATE, 1);
+            duplicate = true;
+        }
+    }
 
-            sm.clkTimer(StatType.TIME_API_REPLY_DOWNLOAD);
-            sm.addValue(StatType.COUNT_REPLY_SIZE, totalByteCount);
+    /**
+     * Called when the decoder reaches the next change id of a streamed reply. By then the scanner has normally
+     * already seen it, as every byte the decoder reads passes through the scanner first.
+     *
+     * @param changeId The next change id
+     * @return False if the reply has already been downloaded and should be discarded
+     */
+    private boolean onReplyChangeId(String changeId) {
+        // Fall back to the decoder's value in case the scanner did not recognize the field
+        if (!changeIdFound) {
+            onChangeId(changeId);
         }
 
-        // Now at this point we got the whole reply JSON as a ~3MB string
-        // and should convert it to an object before returning
-        Reply reply = gson.fromJson(jsonBuffer.toString(), Reply.class);
+        return !duplicate;
+    }
 
-        // In the case the reply's invalid
-        if (reply == null || reply.next_change_id == null) {
-            return null;
+    /**
+     * Called for every stash decoded from a streamed reply
+     *
+     * @param stash The decoded stash
+     * @return False if the worker should stop reading
+     */
+    private boolean onStash(Stash stash) {
+        // Check if run flag is lowered or the reply is a duplicate
+        if (!run || duplicate) return false;
+
+        long startTime = System.nanoTime();
+        ip.processStash(stash, bundle);
+        parseTime += System.nanoTime() - startTime;
+
+        return true;
+    }
+
+    /**
+     * Records download errors
+     *
+     * @param ex Exception thrown while downloading
+     */
+    private void handleDownloadError(Exception ex) {
+        String message = ex.getMessage() == null ? ex.toString() : ex.getMessage();
+
+        // Very professional exception logging
+        if (message.contains("Read timed out")) {
+            sm.addValue(StatType.COUNT_API_ERRORS_READ_TIMEOUT, null);
+        } else if (message.contains("connect timed out")) {
+            sm.addValue(StatType.COUNT_API_ERRORS_CONNECT_TIMEOUT, null);
+        } else if (message.contains("Connection reset")) {
+            sm.addValue(StatType.COUNT_API_ERRORS_CONN_RESET, null);
+        } else if (exceptionPattern5xx.matcher(message).matches()) {
+            sm.addValue(StatType.COUNT_API_ERRORS_5XX, null);
+        } else if (exceptionPattern4xx.matcher(message).matches()) {
+            sm.addValue(StatType.COUNT_API_ERRORS_4XX, null);
         }
 
-        return reply;
+        logger.error("Caught worker download error: " + message);
+
+        // Add old change id back to the pool only if a new one hasn't been found
+        if (!changeIdFound) {
+            sleepFor(cf.getInt("worker.lockTimeout"));
+            wm.setNextChangeID(job);
+        }
     }
 
     /**
@@ -266,20 +429,20 @@ public class Worker extends Thread {
     }
 
     /**
-     * Wait on monitor until notified and a new job is given
+     * Wait until a new job is handed over by the worker manager
      */
     private void waitForJob() {
-        synchronized (jobMonitor) {
-            // While worker should run and no job is given
-            while (run && job == null) {
-                try {
-                    jobMonitor.wait(100);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                }
+        // While worker should run and no job is given
+        while (run && !retire && job == null) {
+            // If worker should pause
+            if (pause) waitOnPause();
+
+            // Blocks until a change id is available or the worker is paused or stopped
+            String changeId = wm.takeNextChangeID(() -> run && !retire && !pause);
 
-                // If worker should pause
-                if (pause) waitOnPause();
+            if (changeId != null) {
+                currentJobNr = wm.nextJobNumber();
+                job = changeId;
             }
         }
     }
@@ -288,23 +451,23 @@ public class Worker extends Thread {
      * Wait on pause monitor
      */
     private void waitOnPause() {
-        isPaused = true;
-
         synchronized (pauseMonitor) {
+            isPaused = true;
+            pauseMonitor.notifyAll();
             logger.debug("Worker {} paused", workerId);
 
-            while (pause) {
+            while (pause && run && !retire) {
                 try {
-                    pauseMonitor.wait(100);
+                    pauseMonitor.wait();
                 } catch (InterruptedException ex) {
                     Thread.currentThread().interrupt();
                 }
             }
 
             logger.debug("Worker {} resumed", workerId);
+            isPaused = false;
+            pauseMonitor.notifyAll();
         }
-
-        isPaused = false;
     }
 
 
@@ -316,22 +479,33 @@ public class Worker extends Thread {
         return job;
     }
 
-    public void setJob(int jobNr, String job) {
-        this.currentJobNr = jobNr;
-        this.job = job;
-
-        // Notify job monitor
-        synchronized (jobMonitor) {
-            jobMonitor.notify();
-        }
-    }
-
     public boolean isPaused() {
         return isPaused;
     }
 
     public void setPause(boolean pause) {
-        this.pause = pause;
+        synchronized (pauseMonitor) {
+            this.pause = pause;
+            pauseMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until the worker has reached the requested pause state or has stopped
+     *
+     * @param state True to wait until paused, false to wait until resumed
+     */
+    public void awaitPauseState(boolean state) {
+        synchronized (pauseMonitor) {
+            while (isPaused != state && isRunning) {
+                try {
+                    pauseMonitor.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
     }
 
     public boolean isRunning() {
@@ -9,14 +9,18 @@ import poe.Interval.TimeFrame;
 import poe.Interval.IntervalManager;
 import poe.League.LeagueManager;
 import poe.Statistics.StatisticsManager;
+import poe.Utility.ExecutionMode;
 
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 /**
  * Manages worker objects (eg. distributing jobs, adding/removing workers)
  */
-public class WorkerManager extends Thread {
+public class WorkerManager implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(WorkerManager.class);
 
     private final Config config;
@@ -25,14 +29,21 @@ public class WorkerManager extends Thread {
     private final StatisticsManager statisticsManager;
     private final ItemParser itemParser;
     private final IntervalManager intervalManager;
-
-    private final ArrayList<Worker> workerList = new ArrayList<>();
+    private final RateLimiter rateLimiter;
+    private final ApiClient apiClient;
+    private final Pipeline pipeline;
+    private final ReplyRecorder recorder;
+
+    private final ExecutionMode executionMode;
+    private final List<Worker> workerList = new CopyOnWriteArrayList<>();
+    private final List<Worker> retiredList = new CopyOnWriteArrayList<>();
+    private final RiverMonitor riverMonitor;
+    private final Object runMonitor = new Object();
     private volatile boolean flagRun = true;
-    private volatile boolean readyToExit = false;
+    private Thread thread;
 
-    private long lastPullTime;
-    private String nextChangeID;
-    private int jobCounter;
+    private final JobExchanger jobExchanger = new JobExchanger();
+    private final AtomicInteger jobCounter = new AtomicInteger();
 
     public WorkerManager(Config cnf, IntervalManager se, Database db, StatisticsManager sm, LeagueManager lm, ItemParser ip) {
         this.statisticsManager = sm;
@@ -41,10 +52,24 @@ public class WorkerManager extends Thread {
         this.itemParser = ip;
         this.database = db;
         this.config = cnf;
+        this.executionMode = ExecutionMode.fromConfig(cnf);
+        this.rateLimiter = new RateLimiter(cnf, sm);
+        this.apiClient = new ApiClient(cnf, rateLimiter);
+        this.riverMonitor = new RiverMonitor(cnf);
+        this.pipeline = new Pipeline(cnf, sm, ip, riverMonitor);
+        this.recorder = cnf.getBoolean("recorder.enable") ? new ReplyRecorder(cnf) : null;
+    }
+
+    /**
+     * Starts the manager on a thread of the configured execution mode
+     */
+    public void start() {
+        logger.info("Using {} threads", executionMode.name().toLowerCase());
+        thread = executionMode.start("worker-manager", this);
     }
 
     /**
-     * Contains main loop. Checks for open jobs and assigns them to workers
+     * Contains main loop. Runs the timed cycles; jobs are handed to workers directly through the job exchanger
      */
     public void run() {
         logger.info("Starting WorkerManager");
@@ -63,29 +88,49 @@ public class WorkerManager extends Thread {
                 cycle();
             }
 
-            // While there's a job that needs to be given out
-            if (nextChangeID != null) {
-                for (Worker worker : workerList) {
-                    if (worker.getJob() != null) {
-                        continue;
-                    }
-
-                    worker.setJob(++jobCounter, nextChangeID);
-                    nextChangeID = null;
-                }
+            // Measure river lag and adjust the number of workers
+            if (intervalManager.isBool(TimeFrame.M_1)) {
+                riverMonitor.evaluate();
+                riverMonitor.addStatistics(statisticsManager);
+                autoscale();
             }
 
             intervalManager.resetFlags();
 
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
+            // Sleep until the next minute begins or the manager is stopped
+            synchronized (runMonitor) {
+                if (flagRun) {
+                    try {
+                        runMonitor.wait(TimeFrame.M_1.getRemaining() + 1);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
             }
         }
+    }
 
-        // If main loop was interrupted, raise flag indicating program is ready to safely exit
-        readyToExit = true;
+    /**
+     * Adds workers while the river monitor reports a backlog and removes them while at the head of the river,
+     * within autoscale.minWorkers and autoscale.maxWorkers
+     */
+    private synchronized void autoscale() {
+        if (!config.getBoolean("autoscale.enable") || !flagRun) {
+            return;
+        }
+
+        int count = workerList.size();
+        int step = config.getInt("autoscale.step");
+
+        if (riverMonitor.isBehind() && count < config.getInt("autoscale.maxWorkers")) {
+            int spawnCount = Math.min(step, config.getInt("autoscale.maxWorkers") - count);
+            logger.info("Behind the river by ~{} changes, adding {} workers", riverMonitor.getLag(), spawnCount);
+            spawnWorkers(spawnCount);
+        } else if (riverMonitor.isAtHead() && count > config.getInt("autoscale.minWorkers")) {
+            int fireCount = Math.min(step, count - config.getInt("autoscale.minWorkers"));
+            logger.info("At the head of the river, removing {} workers", fireCount);
+            fireWorkers(fireCount);
+        }
     }
 
     /**
@@ -129,7 +174,10 @@ public class WorkerManager extends Thread {
     public void stopController() {
         logger.info("Stopping controller");
 
-        flagRun = false;
+        // Synchronized so the autoscaler can't add workers past this point
+        synchronized (this) {
+            flagRun = false;
+        }
 
         // Request worker shutdowns
         for (Worker worker : workerList) {
@@ -137,32 +185,42 @@ public class WorkerManager extends Thread {
             worker.requestStop();
         }
 
+        // Workers that were removed earlier might still be finishing their last job
+        for (Worker worker : retiredList) {
+            worker.requestStop();
+        }
+
+        // Wake up workers waiting for a job
+        jobExchanger.wakeAll();
+
         // Wait until all are stopped
-        while (true) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            }
+        for (Worker worker : workerList) {
+            worker.join();
+        }
 
-            boolean allStopped = true;
-            for (Worker worker : workerList) {
-                if (worker.isRunning()) {
-                    allStopped = false;
-                    break;
-                }
-            }
+        for (Worker worker : retiredList) {
+            worker.join();
+        }
 
-            if (allStopped) {
-                break;
-            }
+        // Finish processing and uploading replies that are still queued
+        logger.info("Draining pipeline");
+        pipeline.stop();
+
+        if (recorder != null) {
+            recorder.close();
         }
 
-        // Wait until run() function is ready to exit
-        while (!readyToExit) try {
-            Thread.sleep(50);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
+        // Wake up the main loop and wait until it has exited
+        synchronized (runMonitor) {
+            runMonitor.notifyAll();
+        }
+
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
         }
 
         logger.info("Controller stopped");
@@ -182,13 +240,13 @@ public class WorkerManager extends Thread {
      *
      * @param workerCount Amount of new workers to be added
      */
-    public void spawnWorkers(int workerCount) {
+    public synchronized void spawnWorkers(int workerCount) {
         // Get the next available array index
         int nextWorkerIndex = workerList.size();
 
         // Loop through creation
         for (int i = nextWorkerIndex; i < nextWorkerIndex + workerCount; i++) {
-            Worker worker = new Worker(i, this, statisticsManager, itemParser, database, config);
+            Worker worker = new Worker(i, this, statisticsManager, itemParser, database, config, apiClient);
             worker.start();
 
             // Add worker to local list
@@ -201,7 +259,7 @@ public class WorkerManager extends Thread {
      *
      * @param workerCount Amount of new workers to be removed
      */
-    public void fireWorkers(int workerCount) {
+    public synchronized void fireWorkers(int workerCount) {
         Worker lastWorker;
 
         // Get the last available index
@@ -213,27 +271,46 @@ public class WorkerManager extends Thread {
             return;
         }
 
-        // Loop through removal
+        // Forget workers that have already retired
+        retiredList.removeIf(worker -> !worker.isRunning());
+
+        // Loop through removal. The workers finish their current job before stopping
         for (int i = lastWorkerIndex; i > lastWorkerIndex - workerCount; i--) {
             lastWorker = workerList.get(i);
-            lastWorker.requestStop();
+            lastWorker.requestRetire();
             workerList.remove(lastWorker);
+            retiredList.add(lastWorker);
         }
+
+        // Wake up the removed workers if they were waiting for a job
+        jobExchanger.wakeAll();
     }
 
     /**
-     * Sets the next change ID in the variable. If the variable has no value, set it to the newChangeID's one,
-     * otherwise compare the two and set the newest
+     * Offers the next change ID to the workers. If there already is a change ID waiting to be picked up, the newer
+     * one is kept. An idle worker is woken up immediately.
      *
      * @param newChangeID Change ID to be added
      */
     public void setNextChangeID(String newChangeID) {
-        if (nextChangeID == null) {
-            nextChangeID = newChangeID;
-        } else if (Integer.parseInt(newChangeID.substring(newChangeID.lastIndexOf('-') + 1)) >
-                Integer.parseInt(nextChangeID.substring(nextChangeID.lastIndexOf('-') + 1))) {
-            nextChangeID = newChangeID;
-        }
+        jobExchanger.offer(newChangeID);
+    }
+
+    /**
+     * Blocks the calling worker until a change ID becomes available
+     *
+     * @param isWaiting Should return false once the worker should stop waiting
+     * @return Change ID or null if the wait was cut short
+     */
+    String takeNextChangeID(BooleanSupplier isWaiting) {
+        return jobExchanger.take(isWaiting);
+    }
+
+    /**
+     * @return Sequence number for a newly taken job
+     */
+    int nextJobNumber() {
+        return jobCounter.incrementAndGet();
     }
 
     /**
@@ -249,36 +326,34 @@ public class WorkerManager extends Thread {
             worker.setPause(state);
         }
 
-        // User wants to wait until all workers are paused/resumed
-        while (wait) {
-            boolean tmp = false;
+        // Wake up workers waiting for a job so they'd notice the pause
+        jobExchanger.wakeAll();
 
-            // If there's at least 1 worker that doesn't match the state
+        // User wants to wait until all workers are paused/resumed
+        if (wait) {
             for (Worker worker : workerList) {
-                if (worker.isPaused() != state) {
-                    tmp = true;
-                    break;
-                }
+                worker.awaitPauseState(state);
             }
+        }
+    }
 
-            if (!tmp) {
-                break;
-            }
 
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            }
-        }
+    RateLimiter getRateLimiter() {
+        return rateLimiter;
     }
 
+    Pipeline getPipeline() {
+        return pipeline;
+    }
 
-    public long getLastPullTime() {
-        return lastPullTime;
+    RiverMonitor getRiverMonitor() {
+        return riverMonitor;
     }
 
-    public void setLastPullTime() {
-        this.lastPullTime = System.currentTimeMillis();
+    /**
+     * @return Reply recorder or null if recording is disabled
+     */
+    ReplyRecorder getRecorder() {
+        return recorder;
     }
 }
@@ -0,0 +1,124 @@
+package poe.Item.Deserializers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class ReplyReaderTest {
+    private static final Gson gson = new Gson();
+
+    private static InputStream fixture() {
+        return ReplyReaderTest.class.getResourceAsStream("reply.json");
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Reply gsonReply() throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(fixture(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Reply.class);
+        }
+    }
+
+    private static void assertStashEquals(Stash expected, Stash actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.isPublic, actual.isPublic, expected.id);
+        assertEquals(expected.accountName, actual.accountName, expected.id);
+        assertEquals(expected.lastCharacterName, actual.lastCharacterName, expected.id);
+        assertEquals(expected.stashName, actual.stashName, expected.id);
+        assertEquals(expected.stashType, actual.stashType, expected.id);
+        assertEquals(expected.league, actual.league, expected.id);
+        assertEquals(gson.toJson(expected.items), gson.toJson(actual.items), expected.id);
+    }
+
+    @Test
+    void gsonTest() throws IOException {
+        Reply expected = gsonReply();
+        Reply actual = new ReplyReader(gson, stash -> true).readReply(fixture());
+
+        assertEquals(expected.next_change_id, actual.next_change_id);
+        assertEquals(expected.stashes.size(), actual.stashes.size());
+
+        // Fields in any order, unknown fields skipped
+        for (int i = 0; i < expected.stashes.size(); i++) {
+            assertStashEquals(expected.stashes.get(i), actual.stashes.get(i));
+            assertEquals(0, actual.stashes.get(i).skippedItems);
+        }
+
+        assertEquals(2, actual.stashes.get(0).items.size());
+        assertEquals("Devoto's Devotion", actual.stashes.get(1).items.get(0).getName());
+    }
+
+    @Test
+    void skippedItemsTest() throws IOException {
+        List<String> filtered = new ArrayList<>();
+
+        Reply reply = new ReplyReader(gson, stash -> {
+            filtered.add(stash.id);
+            return stash.league != null && !stash.league.startsWith("SSF");
+        }).readReply(fixture());
+
+        Reply expected = gsonReply();
+
+        // The second stash's items come before its league, so the filter can't be asked and nothing is skipped
+        assertEquals(List.of("a8b4c1f2e3", "c0d6e3f4a5", "d1e7f4a5b6"), filtered);
+        assertStashEquals(expected.stashes.get(1), reply.stashes.get(1));
+
+        // Items of unwanted stashes are only counted
+        Stash skipped = reply.stashes.get(2);
+        assertNull(skipped.items);
+        assertEquals(3, skipped.skippedItems);
+        assertEquals(3, skipped.getItemCount());
+        assertEquals("Account3", skipped.accountName);
+        assertEquals("SSF Standard", skipped.league);
+
+        // Stash fields are still read in full
+        assertStashEquals(expected.stashes.get(0), reply.stashes.get(0));
+        assertEquals(2, reply.stashes.get(0).getItemCount());
+    }
+
+    @Test
+    void missingFieldsTest() throws IOException {
+        // The filter is never asked without league, public and accountName
+        String json = "{\"stashes\":[{\"id\":\"a\",\"league\":\"SSF\",\"public\":true,\"items\":[{\"id\":\"1\"}]},"
+                + "{\"id\":\"b\",\"public\":true,\"accountName\":\"x\"},null],\"next_change_id\":\"1-2\"}";
+
+        Reply reply = new ReplyReader(gson, stash -> false).readReply(stream(json));
+
+        assertEquals("1-2", reply.next_change_id);
+        assertEquals(2, reply.stashes.size());
+        assertEquals(1, reply.stashes.get(0).items.size());
+
+        // A stash without items has an empty list
+        assertTrue(reply.stashes.get(1).items.isEmpty());
+        assertEquals(0, reply.stashes.get(1).getItemCount());
+    }
+
+    @Test
+    void stopTest() throws IOException {
+        List<String> stashes = new ArrayList<>();
+
+        // Reading stops as soon as a handler asks to
+        assertNull(new ReplyReader(gson, stash -> true).read(fixture(), changeId -> false, stash -> {
+            stashes.add(stash.id);
+            return true;
+        }));
+        assertTrue(stashes.isEmpty());
+
+        assertNull(new ReplyReader(gson, stash -> true).read(fixture(), changeId -> true, stash -> {
+            stashes.add(stash.id);
+            return stashes.size() < 2;
+        }));
+        assertEquals(List.of("a8b4c1f2e3", "b9c5d2e3f4"), stashes);
+    }
+}
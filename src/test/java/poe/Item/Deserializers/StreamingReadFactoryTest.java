@@ -0,0 +1,129 @@
+package poe.Item.Deserializers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+class StreamingReadFactoryTest {
+    private static final Gson gson = new Gson();
+
+    // Not registered anywhere, so Gson skips past @JsonAdapter when asked for the adapter after it
+    private static final TypeAdapterFactory unregistered = new TypeAdapterFactory() {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            return null;
+        }
+    };
+
+    private static final List<Class<?>> streamed = Arrays.asList(
+            ApiItem.class, Extended.class, Influences.class, Property.class, Socket.class);
+
+    /**
+     * Decodes the item classes reflectively, the way they were decoded before the streaming adapters
+     */
+    private static final Gson reflective = new GsonBuilder()
+            .registerTypeAdapterFactory(new TypeAdapterFactory() {
+                @Override
+                public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                    return streamed.contains(type.getRawType()) ? gson.getDelegateAdapter(unregistered, type) : null;
+                }
+            })
+            .serializeNulls()
+            .create();
+
+    private static final String item = "{"
+            + "\"verified\":false,\"w\":2,\"h\":1,"
+            + "\"icon\":\"https://web.poecdn.com/image/Art/2DItems/Belts/HeadHuntersBelt.png?scale=1&w=2&h=1\","
+            + "\"league\":\"Standard\",\"id\":\"5f1d0a0b\","
+            + "\"influences\":{\"shaper\":true,\"elder\":null,\"crusader\":false,\"unknown\":[1,[2,{\"a\":null}]]},"
+            + "\"sockets\":[{\"group\":0,\"attr\":\"S\",\"sColour\":\"R\"},{\"group\":1,\"attr\":null},null],"
+            + "\"name\":\"Headhunter\",\"typeLine\":\"Leather Belt\",\"identified\":true,\"ilvl\":84,"
+            + "\"note\":\"~b/o 80 exa\",\"corrupted\":null,\"synthesised\":false,\"stackSize\":null,"
+            + "\"prophecyText\":null,\"thRaceReward\":true,"
+            + "\"properties\":[{\"name\":\"Quality\",\"values\":[[\"+20%\",1],[]],\"displayMode\":0,\"type\":6},"
+            + "{\"name\":\"Radius\",\"values\":[]},{\"name\":\"Empty\",\"values\":null}],"
+            + "\"requirements\":[{\"name\":\"Level\",\"values\":[[\"40\",0]],\"displayMode\":0}],"
+            + "\"implicitMods\":[\"+32 to maximum Life\"],"
+            + "\"explicitMods\":[\"+40 to Strength\",null,\"+60 to maximum Life\"],"
+            + "\"enchantMods\":[],"
+            + "\"flavourText\":[\"\\\"A man's soul rules from a cavern of bone\\\"\",\"\\r\\n\"],"
+            + "\"frameType\":3,"
+            + "\"extended\":{\"category\":\"accessories\",\"subcategories\":[\"belt\",\"unique\"],\"prefixes\":1,"
+            + "\"mods\":{\"explicit\":[{\"name\":\"\",\"tier\":\"\",\"magnitudes\":[{\"hash\":\"x\",\"min\":1}]}]}},"
+            + "\"x\":0,\"y\":0,\"inventoryId\":\"Stash1\","
+            + "\"socketedItems\":[{\"id\":\"gem\",\"properties\":[{\"name\":\"Level\",\"values\":[[\"20\",0]]}]}]"
+            + "}";
+
+    private static void assertSameAsReflective(String json) {
+        ApiItem expected = reflective.fromJson(json, ApiItem.class);
+        ApiItem actual = gson.fromJson(json, ApiItem.class);
+
+        assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+    }
+
+    @Test
+    void reflectiveTest() {
+        assertSameAsReflective(item);
+
+        // Each object on its own, including all-null and empty ones
+        assertSameAsReflective("{}");
+        assertSameAsReflective("{\"influences\":{},\"extended\":{},\"properties\":[],\"sockets\":[]}");
+        assertSameAsReflective("{\"influences\":null,\"extended\":null,\"properties\":null,\"sockets\":null,"
+                + "\"explicitMods\":null,\"enchantMods\":null,\"identified\":null,\"ilvl\":null,\"name\":null}");
+    }
+
+    @Test
+    void nestedTest() {
+        ApiItem decoded = gson.fromJson(item, ApiItem.class);
+
+        // Spot checks, in case both sides went wrong the same way
+        assertEquals(Arrays.asList(Arrays.asList("+20%", "1"), Arrays.asList()), decoded.getProperties().get(0).values);
+        assertTrue(decoded.getProperties().get(1).values.isEmpty());
+        assertNull(decoded.getProperties().get(2).values);
+        assertNull(decoded.getSockets().get(2));
+        assertEquals(1, decoded.getSockets().get(1).group);
+        assertEquals(Arrays.asList("belt", "unique"), decoded.getExtended().getSubcategories());
+        assertEquals(Arrays.asList("+40 to Strength", null, "+60 to maximum Life"), decoded.getExplicitMods());
+        assertTrue(decoded.getInfluences().shaper);
+        assertNull(decoded.getInfluences().elder);
+        assertNull(decoded.getCorrupted());
+        assertNull(decoded.getStackSize());
+        assertTrue(decoded.isEnchantBranch());
+    }
+
+    @Test
+    void raceRewardTest() {
+        // Only the presence of a non-null race reward field counts, whatever its name or value
+        assertNull(gson.fromJson("{}", ApiItem.class).isRaceReward());
+        assertNull(gson.fromJson("{\"seaRaceReward\":null}", ApiItem.class).isRaceReward());
+        assertTrue(gson.fromJson("{\"raceReward\":{\"x\":[1]}}", ApiItem.class).isRaceReward());
+        assertTrue(gson.fromJson("{\"thRaceReward\":false}", ApiItem.class).isRaceReward());
+        assertTrue(gson.fromJson("{\"cisRaceReward\":\"x\"}", ApiItem.class).isRaceReward());
+    }
+
+    @Test
+    void roundTripTest() {
+        // Writing goes through the reflective adapter, reading the result back gives the same item
+        ApiItem decoded = gson.fromJson(item, ApiItem.class);
+        String written = gson.toJson(decoded);
+
+        assertEquals(reflective.toJson(decoded), reflective.toJson(gson.fromJson(written, ApiItem.class)));
+        assertEquals(written, gson.toJson(gson.fromJson(written, ApiItem.class)));
+        assertTrue(gson.fromJson(written, ApiItem.class).isRaceReward());
+
+        // An absent race reward must not come back as one
+        String plain = gson.toJson(gson.fromJson("{\"name\":\"Headhunter\"}", ApiItem.class));
+        assertNull(gson.fromJson(plain, ApiItem.class).isRaceReward());
+
+        assertEquals("null", gson.toJson(null, ApiItem.class));
+        assertNull(gson.fromJson("null", ApiItem.class));
+    }
+}
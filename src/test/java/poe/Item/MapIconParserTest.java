@@ -0,0 +1,196 @@
+package poe.Item;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+class MapIconParserTest {
+    private static final String museum = "https://web.poecdn.com/gen/image/WzI4LDE0LHsiZiI6IjJESXRlbXNcL01hcHNcL0F0bGFz"
+            + "Mk1hcHNcL05ld1wvTXVzZXVtIiwidyI6MSwiaCI6MSwic2NhbGUiOnRydWUsIm1uIjo3LCJtdCI6M31d/fb4a9b4077/Item.png";
+
+    /**
+     * Builds an icon url the way the CDN does
+     *
+     * @param json    Parameters, eg [28,14,{"f":"..."}]
+     * @param padding Keep the base64 padding
+     */
+    private static String icon(String json, boolean padding) {
+        String base64 = Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+        if (!padding) base64 = base64.replace("=", "");
+        return "https://web.poecdn.com/gen/image/" + base64 + "/fb4a9b4077/Item.png";
+    }
+
+    private static String icon(String params) {
+        return icon("[28,14,{" + params + "}]", true);
+    }
+
+    /**
+     * @return Series of the Gson based parser or null if it failed in any way
+     */
+    private static Integer slow(String icon) {
+        try {
+            return MapIconParser.parseSeriesSlow(icon);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * The fast path may give up on anything, but whatever it does return must match the Gson based parser
+     */
+    private static void assertAgrees(String icon) {
+        int fast = MapIconParser.decodeSeries(icon);
+        Integer slow = slow(icon);
+
+        if (fast != MapIconParser.unknown) {
+            assertEquals(slow, Integer.valueOf(fast), icon);
+        } else if (slow != null) {
+            assertEquals(slow, MapIconParser.parseSeries(icon), icon);
+        }
+    }
+
+    private static void assertSeries(int expected, String icon) {
+        assertEquals(expected, MapIconParser.decodeSeries(icon), icon);
+        assertEquals(Integer.valueOf(expected), slow(icon), icon);
+    }
+
+    private static void assertFallback(Integer expected, String icon) {
+        assertEquals(MapIconParser.unknown, MapIconParser.decodeSeries(icon), icon);
+        assertEquals(expected, slow(icon), icon);
+    }
+
+    @Test
+    void realIconTest() {
+        assertSeries(9, museum);
+        assertEquals(Integer.valueOf(9), MapIconParser.parseSeries(museum));
+
+        assertSeries(0, icon("\"f\":\"2DItems\\/Maps\\/Map45\",\"w\":1,\"h\":1,\"scale\":true"));
+        assertSeries(1, icon("\"f\":\"2DItems\\/Maps\\/act4maps\\/Map76\",\"w\":1,\"h\":1,\"scale\":true"));
+        assertSeries(2, icon("\"f\":\"2DItems\\/Maps\\/AtlasMaps\\/Chimera\",\"w\":1,\"h\":1,\"scale\":true"));
+        assertSeries(3, icon("\"f\":\"2DItems\\/Maps\\/Atlas2Maps\\/New\\/VaalTempleBase\",\"w\":1,\"h\":1,"
+                + "\"scale\":true,\"mn\":1,\"mt\":0"));
+    }
+
+    @Test
+    void mnTest() {
+        String f = "\"f\":\"2DItems\\/Maps\\/Atlas2Maps\\/New\\/Museum\"";
+
+        // Quoted or not
+        assertSeries(9, icon(f + ",\"mn\":7"));
+        assertSeries(9, icon(f + ",\"mn\":\"7\""));
+        assertSeries(9, icon("\"mn\":7, " + f));
+        assertSeries(9, icon(f + " , \"mn\" : 7 "));
+
+        // Not a whole number or missing
+        assertFallback(null, icon(f + ",\"mn\":1.5"));
+        assertFallback(null, icon(f + ",\"mn\":null"));
+        assertFallback(null, icon(f + ",\"mn\":\"x\""));
+        assertFallback(null, icon(f));
+    }
+
+    @Test
+    void directoryTest() {
+        // Categories are matched case insensitively, anything else is not a map
+        assertSeries(0, icon("\"f\":\"2DItems\\/MAPS\\/Map45\""));
+        assertSeries(2, icon("\"f\":\"2DItems\\/Maps\\/atlasmaps\\/Chimera\""));
+        assertSeries(0, icon("\"f\":\"2DItems\\/Maps\\/Map45\\/\""));
+        assertFallback(null, icon("\"f\":\"2DItems\\/Currency\\/CurrencyRerollRare\""));
+        assertFallback(null, icon("\"f\":\"2DItems\\/Maps\\/Atlas2Maps\\/Museum\",\"mn\":7"));
+    }
+
+    @Test
+    void repeatedKeyTest() {
+        String f = "\"f\":\"2DItems\\/Maps\\/Atlas2Maps\\/New\\/Museum\"";
+
+        // Gson refuses repeated keys, so the fast path must not answer either
+        assertFallback(null, icon(f + ",\"mn\":7,\"mn\":7"));
+        assertFallback(null, icon(f + "," + f + ",\"mn\":7"));
+        assertFallback(null, icon(f + ",\"w\":1,\"mn\":7,\"w\":1"));
+        assertFallback(null, icon(f + ",\"scale\":true,\"scale\":false,\"mn\":7"));
+    }
+
+    @Test
+    void escapeTest() {
+        // Escaped slashes are the only escapes the fast path decodes itself
+        assertSeries(9, icon("\"f\":\"2DItems/Maps/Atlas2Maps/New/Museum\",\"mn\":7"));
+        assertFallback(9, icon("\"f\":\"2DItems\\u002fMaps\\u002fAtlas2Maps\\u002fNew\\u002fMuseum\",\"mn\":7"));
+        assertFallback(9, icon("\"\\u0066\":\"2DItems\\/Maps\\/Atlas2Maps\\/New\\/Museum\",\"mn\":7"));
+
+        // A key spelled with escapes is still a repeated key to Gson
+        assertFallback(null, icon("\"f\":\"2DItems\\/Maps\\/Map45\",\"\\u0066\":\"2DItems\\/Maps\\/Map45\""));
+    }
+
+    @Test
+    void paddingTest() {
+        // Pad the json to each length modulo 3, so the base64 ends in none, one or two padding characters
+        for (String space : new String[]{"", " ", "  "}) {
+            String json = "[28,14,{\"f\":\"2DItems\\/Maps\\/Atlas2Maps\\/New\\/Museum\",\"mn\":7" + space + "}]";
+
+            assertSeries(9, icon(json, true));
+            assertSeries(9, icon(json, false));
+        }
+    }
+
+    @Test
+    void malformedTest() {
+        String f = "\"f\":\"2DItems\\/Maps\\/Map45\"";
+
+        assertFallback(null, "Item.png");
+        assertFallback(null, "/fb4a9b4077/Item.png");
+        assertFallback(null, "https://web.poecdn.com/gen/image/%%%%/fb4a9b4077/Item.png");
+        assertFallback(null, "https://web.poecdn.com/gen/image/WzI4-DE0_/fb4a9b4077/Item.png");
+        assertFallback(null, icon("[28,14,{" + f, true));
+        assertFallback(null, icon("[28,14," + f + "]", true));
+        assertFallback(null, icon("[28,14,{\"f\":2}]", true));
+        assertFallback(null, icon("[28,14,{}]", true));
+        assertFallback(null, icon("", true));
+        assertFallback(null, icon("[28,14,{\"f\":\"2DItems\\/Maps\\/Map45}]", true));
+        assertFallback(null, icon("[28,14,{" + f + " \"w\":1}]", true));
+
+        // Nested values and non-ascii content are left to the Gson parser
+        assertAgrees(icon(f + ",\"x\":{\"a\":1}"));
+        assertAgrees(icon(f + ",\"y\":[1,2]"));
+        assertAgrees(icon("\"f\":\"2DItems\\/Maps\\/Kart\u00eb\\/Map45\""));
+    }
+
+    @Test
+    void randomTest() {
+        Random random = new Random(24);
+        String[] directories = {"Maps", "act4maps", "AtlasMaps", "New", "NEW", "Other", ""};
+
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder f = new StringBuilder("2DItems\\/Maps");
+            int depth = random.nextInt(3);
+            for (int j = 0; j <= depth; j++) {
+                f.append(random.nextBoolean() ? "\\/" : "/").append(directories[random.nextInt(directories.length)]);
+            }
+
+            List<String> params = new ArrayList<>();
+            if (random.nextInt(20) != 0) params.add("\"f\":\"" + f + "\"");
+            params.add("\"w\":1");
+            params.add("\"scale\":true");
+
+            switch (random.nextInt(6)) {
+                case 1: params.add("\"mn\":" + random.nextInt(20)); break;
+                case 2: params.add("\"mn\":\"" + random.nextInt(20) + "\""); break;
+                case 3: params.add("\"mn\":1.5"); break;
+                case 4: params.add("\"mn\":null"); break;
+            }
+
+            if (random.nextInt(15) == 0) params.add("\"x\":{\"a\":1}");
+            if (random.nextInt(8) == 0) params.add("\"w\":2");
+            if (random.nextInt(20) == 0) params.add("\"\\/\":1");
+
+            Collections.shuffle(params, random);
+            String json = "[28,14,{" + String.join(random.nextBoolean() ? "," : ", ", params) + "}]";
+            assertAgrees(icon(json, random.nextBoolean()));
+        }
+    }
+}
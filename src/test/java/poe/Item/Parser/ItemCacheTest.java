@@ -0,0 +1,263 @@
+package poe.Item.Parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+import poe.Item.Deserializers.*;
+import poe.Item.Item;
+import poe.League.LeagueManager;
+import poe.Relation.Indexer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Consumer;
+
+class ItemCacheTest {
+    private static final Gson gson = new Gson();
+
+    private static final String base = "{"
+            + "\"id\":\"5f1d0a\",\"note\":\"~b/o 1 exa\",\"identified\":true,\"ilvl\":84,\"frameType\":3,"
+            + "\"corrupted\":false,\"synthesised\":false,\"league\":\"Standard\",\"name\":\"Headhunter\","
+            + "\"icon\":\"https://web.poecdn.com/image/Art/2DItems/Belts/HeadHuntersBelt.png?scale=1&w=2&h=1\","
+            + "\"typeLine\":\"Leather Belt\",\"stackSize\":1,\"prophecyText\":\"Text\","
+            + "\"influences\":{\"shaper\":true},"
+            + "\"extended\":{\"category\":\"accessories\",\"subcategories\":[\"belt\"]},"
+            + "\"properties\":[{\"name\":\"Quality\",\"values\":[[\"+20%\",1]],\"displayMode\":0}],"
+            + "\"sockets\":[{\"group\":0,\"attr\":\"S\"}],"
+            + "\"explicitMods\":[\"+40 to Strength\",\"+60 to maximum Life\"],"
+            + "\"enchantMods\":[\"Enchant\"]"
+            + "}";
+
+    /**
+     * One modification per field the branches can read, named after the field
+     */
+    private static final Map<String, Consumer<JsonObject>> modifications = new LinkedHashMap<>();
+
+    static {
+        modifications.put("identified", o -> o.addProperty("identified", false));
+        modifications.put("ilvl", o -> o.addProperty("ilvl", 85));
+        modifications.put("frameType", o -> o.addProperty("frameType", 2));
+        modifications.put("corrupted", o -> o.addProperty("corrupted", true));
+        modifications.put("synthesised", o -> o.remove("synthesised"));
+        modifications.put("icon", o -> o.addProperty("icon", "https://web.poecdn.com/image/Art/2DItems/Belt.png"));
+        modifications.put("league", o -> o.addProperty("league", "Hardcore"));
+        modifications.put("name", o -> o.addProperty("name", "Headhunters"));
+        modifications.put("typeLine", o -> o.addProperty("typeLine", "Heavy Belt"));
+        modifications.put("stackSize", o -> o.addProperty("stackSize", 2));
+        modifications.put("prophecyText", o -> o.addProperty("prophecyText", "Other text"));
+        modifications.put("raceReward", o -> o.addProperty("seaRaceReward", true));
+        modifications.put("explicitMods", o -> o.getAsJsonArray("explicitMods").add("+1 to Level"));
+        modifications.put("enchantMods", o -> o.remove("enchantMods"));
+
+        modifications.put("influences", o -> o.remove("influences"));
+        modifications.put("influences.shaper", o -> o.getAsJsonObject("influences").addProperty("shaper", false));
+        modifications.put("influences.elder", o -> o.getAsJsonObject("influences").addProperty("elder", true));
+        modifications.put("influences.crusader", o -> o.getAsJsonObject("influences").addProperty("crusader", true));
+        modifications.put("influences.redeemer", o -> o.getAsJsonObject("influences").addProperty("redeemer", true));
+        modifications.put("influences.hunter", o -> o.getAsJsonObject("influences").addProperty("hunter", true));
+        modifications.put("influences.warlord", o -> o.getAsJsonObject("influences").addProperty("warlord", true));
+
+        modifications.put("extended", o -> o.remove("extended"));
+        modifications.put("extended.category", o -> o.getAsJsonObject("extended").addProperty("category", "armour"));
+        modifications.put("extended.subcategories", o -> o.getAsJsonObject("extended")
+                .getAsJsonArray("subcategories").set(0, new JsonParser().parse("\"ring\"")));
+
+        modifications.put("properties", o -> o.remove("properties"));
+        modifications.put("properties.name", o -> property(o).addProperty("name", "Level"));
+        modifications.put("properties.values", o -> property(o).getAsJsonArray("values")
+                .get(0).getAsJsonArray().set(0, new JsonParser().parse("\"+19%\"")));
+
+        modifications.put("sockets", o -> o.getAsJsonArray("sockets")
+                .add(new JsonParser().parse("{\"group\":0,\"attr\":\"D\"}")));
+        modifications.put("sockets.group", o -> socket(o).addProperty("group", 1));
+        modifications.put("sockets.attr", o -> socket(o).addProperty("attr", "I"));
+    }
+
+    private static JsonObject property(JsonObject item) {
+        return item.getAsJsonArray("properties").get(0).getAsJsonObject();
+    }
+
+    private static JsonObject socket(JsonObject item) {
+        return item.getAsJsonArray("sockets").get(0).getAsJsonObject();
+    }
+
+    private static ApiItem item(Consumer<JsonObject> modification) {
+        JsonObject json = new JsonParser().parse(base).getAsJsonObject();
+        modification.accept(json);
+        return gson.fromJson(json, ApiItem.class);
+    }
+
+    @Test
+    void getPutTest() {
+        ItemCache cache = new ItemCache(100, 4);
+        ItemCache.Result[] results = {new ItemCache.Result(12, 3, false), new ItemCache.Result(13, null, true)};
+
+        assertNull(cache.get("a", 1, 42));
+        cache.put("a", 1, 42, results);
+
+        // A hit returns the stored results
+        ItemCache.Result[] cached = cache.get("a", 1, 42);
+        assertSame(results, cached);
+        assertEquals(12, cached[0].id_d);
+        assertEquals(Integer.valueOf(3), cached[0].stackSize);
+        assertFalse(cached[0].clearPrice);
+        assertEquals(13, cached[1].id_d);
+        assertNull(cached[1].stackSize);
+        assertTrue(cached[1].clearPrice);
+
+        // Same item in another league or with a different hash
+        assertNull(cache.get("a", 2, 42));
+        assertNull(cache.get("a", 1, 43));
+        assertNull(cache.get("b", 1, 42));
+
+        // Replaced by a newer version
+        cache.put("a", 1, 43, new ItemCache.Result[0]);
+        assertNull(cache.get("a", 1, 42));
+        assertEquals(0, cache.get("a", 1, 43).length);
+    }
+
+    @Test
+    void evictionTest() {
+        ItemCache cache = new ItemCache(2, 1);
+
+        cache.put("a", 1, 1, new ItemCache.Result[0]);
+        cache.put("b", 1, 1, new ItemCache.Result[0]);
+        cache.get("a", 1, 1);
+        cache.put("c", 1, 1, new ItemCache.Result[0]);
+
+        // The least recently used item is dropped first
+        assertNull(cache.get("b", 1, 1));
+        assertNotNull(cache.get("a", 1, 1));
+        assertNotNull(cache.get("c", 1, 1));
+    }
+
+    @Test
+    void hashTest() {
+        long hash = ItemCache.hash(item(o -> {}));
+        assertEquals(hash, ItemCache.hash(item(o -> {})));
+
+        // Price and id are not part of the item's identity
+        assertEquals(hash, ItemCache.hash(item(o -> o.addProperty("note", "~price 2 chaos"))));
+        assertEquals(hash, ItemCache.hash(item(o -> o.addProperty("id", "other"))));
+
+        // Fields nothing looks at
+        assertEquals(hash, ItemCache.hash(item(o -> o.addProperty("flavourText", "text"))));
+        assertEquals(hash, ItemCache.hash(item(o -> property(o).addProperty("displayMode", 1))));
+
+        for (Map.Entry<String, Consumer<JsonObject>> modification : modifications.entrySet()) {
+            assertNotEquals(hash, ItemCache.hash(item(modification.getValue())), modification.getKey());
+        }
+    }
+
+    @Test
+    void hashOrderTest() {
+        long hash = ItemCache.hash(item(o -> {}));
+
+        // Mods are compared in order
+        assertNotEquals(hash, ItemCache.hash(item(o -> {
+            JsonArray mods = o.getAsJsonArray("explicitMods");
+            mods.add(mods.remove(0));
+        })));
+    }
+
+    @Test
+    void hashMissTest() {
+        ItemCache cache = new ItemCache(100, 1);
+        ApiItem original = item(o -> {});
+        cache.put(original.getId(), 1, ItemCache.hash(original), new ItemCache.Result[0]);
+
+        for (Map.Entry<String, Consumer<JsonObject>> modification : modifications.entrySet()) {
+            ApiItem modified = item(modification.getValue());
+            assertNull(cache.get(modified.getId(), 1, ItemCache.hash(modified)), modification.getKey());
+        }
+    }
+
+    /**
+     * Every field the deserializers decode must either have a modification above or be explicitly left out of the
+     * hash, so a field added later can't be forgotten
+     */
+    @Test
+    void hashCoverageTest() {
+        Set<String> fields = new TreeSet<>();
+        addFields(fields, "", ApiItem.class);
+        addFields(fields, "influences.", Influences.class);
+        addFields(fields, "extended.", Extended.class);
+        addFields(fields, "properties.", Property.class);
+        addFields(fields, "sockets.", Socket.class);
+
+        fields.removeAll(Arrays.asList("id", "note"));
+
+        assertEquals(fields, new TreeSet<>(modifications.keySet()));
+    }
+
+    private static void addFields(Set<String> fields, String prefix, Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                fields.add(prefix + field.getName());
+            }
+        }
+    }
+
+    @Test
+    void incompleteTest() {
+        Config config = ConfigFactory.parseString("itemCache { enable = true, size = 100, segments = 1 }, "
+                + "stashDigest { enable = false }, parser { parallel = false }, "
+                + "entry { acceptNullPrice = true, removeEnchantedHelmetPrices = true }");
+
+        LeagueManager leagueManager = new LeagueManager(null, config) {
+            @Override
+            public Integer getLeagueId(String name) {
+                return 1;
+            }
+        };
+
+        // Fails to index the first time
+        List<Integer> indexed = new ArrayList<>(Arrays.asList(null, 7));
+        Indexer indexer = new Indexer(null) {
+            @Override
+            public Integer index(Item item, int id_l) {
+                return indexed.remove(0);
+            }
+        };
+
+        ItemParser parser = new ItemParser(leagueManager, indexer, config, null, null);
+
+        ApiItem item = item(o -> {
+            o.remove("note");
+            o.remove("enchantMods");
+            o.remove("influences");
+        });
+
+        Stash stash = new Stash();
+        stash.id = "stash";
+        stash.accountName = "account";
+        stash.league = "Standard";
+        stash.isPublic = true;
+        stash.items = Collections.singletonList(item);
+
+        // Unresolved branches are not cached, so the item is indexed again
+        ReplyBundle bundle = new ReplyBundle();
+        parser.processStash(stash, bundle);
+        assertEquals(0, bundle.dbItems.size());
+        assertEquals(0, bundle.cachedCount);
+
+        bundle = new ReplyBundle();
+        parser.processStash(stash, bundle);
+        assertEquals(1, bundle.dbItems.size());
+        assertEquals(0, bundle.cachedCount);
+        assertTrue(indexed.isEmpty());
+
+        // Now it's answered from the cache
+        bundle = new ReplyBundle();
+        parser.processStash(stash, bundle);
+        assertEquals(1, bundle.cachedCount);
+        assertEquals(7, bundle.dbItems.iterator().next().id_d);
+    }
+}
@@ -0,0 +1,168 @@
+package poe.Item.Parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import poe.Relation.RelationResources;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class PriceTest {
+    private static final Map<String, Integer> aliases = new HashMap<>();
+    private static int lookups;
+
+    @BeforeAll
+    static void setUp() {
+        // Chaos is the base currency and has no id, same as in RelationResources
+        aliases.put("chaos", null);
+        aliases.put("exa", 2);
+        aliases.put("alch", 3);
+
+        Price.setRelationResources(new RelationResources(null, null) {
+            @Override
+            public boolean hasCurrencyAlias(String alias) {
+                lookups++;
+                return aliases.containsKey(alias);
+            }
+
+            @Override
+            public Integer getCurrencyAlias(String alias) {
+                return aliases.get(alias);
+            }
+        });
+    }
+
+    /**
+     * Result of the split based parser the scanner replaced
+     */
+    private static class Baseline {
+        private boolean hasPrice;
+        private Integer currencyId;
+        private double price;
+
+        private Baseline(String note) {
+            if (note == null || note.equals("")) {
+                return;
+            }
+
+            String[] noteList = note.split("\\s+");
+            if (noteList.length < 3 || !noteList[0].equals("~b/o") && !noteList[0].equals("~price")) {
+                return;
+            }
+
+            String[] priceArray = noteList[1].split("/");
+
+            try {
+                if (priceArray.length == 1) {
+                    price = Double.parseDouble(priceArray[0]);
+                } else {
+                    price = Double.parseDouble(priceArray[0]) / Double.parseDouble(priceArray[1]);
+                }
+            } catch (Exception ex) {
+                return;
+            }
+
+            if (Double.isNaN(price) || !aliases.containsKey(noteList[2]) || price < 0.0001 || price > 90000) {
+                return;
+            }
+
+            currencyId = aliases.get(noteList[2]);
+            hasPrice = true;
+        }
+    }
+
+    private static void assertSame(String note) {
+        Baseline expected = new Baseline(note);
+        Price actual = new Price(note, null);
+
+        assertEquals(expected.hasPrice, actual.hasPrice(), "Note '" + note + "'");
+
+        if (expected.hasPrice) {
+            assertEquals(expected.price, actual.getPrice(), "Note '" + note + "'");
+            assertEquals(expected.currencyId, actual.getCurrencyId(), "Note '" + note + "'");
+        }
+    }
+
+    @Test
+    void baselineTest() {
+        String[] notes = {
+                "~b/o 5 chaos", "~price 5.3 exa", "~b/o 3/2 alch", "~b/o 5/ chaos", "~b/o 5/", "~b/o /5 chaos",
+                "~b/o 5//3 chaos", "~b/o 5// chaos", "~b/o / chaos", "~b/o // chaos", "~b/o 5/3/2 chaos",
+                "~b/o 5. chaos", "~b/o .5 chaos", "~b/o . chaos", "~b/o 5.3.1 chaos", "~b/o 1e3 chaos",
+                "~b/o -5 chaos", "~b/o +5 chaos", "~b/o NaN chaos", "~b/o Infinity chaos", "~b/o 0x10 chaos",
+                "~b/o 90000 chaos", "~b/o 90001 chaos", "~b/o 0.0001 chaos", "~b/o 0.00009 chaos",
+                "~b/o 1234567890123456789 chaos", "~b/o 0.1234567890123456789 exa", "~b/o 5 chaoss",
+                "~b/o 5 chaos extra words", "~b/o 5", "~b/o", "~b/o5 chaos", "~B/O 5 chaos", "~bo 5 chaos",
+                "~b/o  5  chaos", "~b/o\t5\tchaos", "~b/o 5 chaos ", "~b/o\n5\r\nchaos", "~b/o\u000B5\fchaos",
+                " ~b/o 5 chaos", "\t~b/o 5 chaos", "~b/o 5 chaos", "", "~price", "stash name"
+        };
+
+        for (String note : notes) {
+            assertSame(note);
+        }
+    }
+
+    @Test
+    void randomBaselineTest() {
+        Random random = new Random(16);
+        String chars = "0123456789./-+e";
+        String[] spaces = {" ", "  ", "\t", " \n"};
+        String[] currencies = {"chaos", "exa", "alch", "gcp"};
+
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder token = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+
+            for (int j = 0; j < length; j++) {
+                // Mostly digits, so that a fair share of the tokens is numeric
+                token.append(random.nextInt(3) == 0
+                        ? chars.charAt(10 + random.nextInt(chars.length() - 10))
+                        : chars.charAt(random.nextInt(10)));
+            }
+
+            String space = spaces[random.nextInt(spaces.length)];
+            assertSame((random.nextBoolean() ? "~b/o" : "~price") + space + token + space
+                    + currencies[random.nextInt(currencies.length)]);
+        }
+    }
+
+    @Test
+    void stashNoteTest() {
+        // The stash note is only used when the item note has no valid price
+        Price price = new Price("~b/o x chaos", "~price 2/4 exa");
+        assertTrue(price.hasPrice());
+        assertEquals(0.5, price.getPrice());
+        assertEquals(2, price.getCurrencyId());
+
+        price = new Price("~b/o 3 alch", "~price 2/4 exa");
+        assertEquals(3, price.getPrice());
+        assertEquals(3, price.getCurrencyId());
+
+        assertFalse(new Price(null, null).hasPrice());
+    }
+
+    @Test
+    void cacheTest() {
+        String note = "~b/o 7/4 exa " + System.nanoTime();
+
+        Price first = new Price(note, null);
+        int count = lookups;
+
+        // A repeated note is answered from the cache without looking up the alias again
+        Price second = new Price(note, null);
+        assertEquals(count, lookups);
+
+        assertTrue(second.hasPrice());
+        assertEquals(first.getPrice(), second.getPrice());
+        assertEquals(first.getCurrencyId(), second.getCurrencyId());
+
+        // An equal note that is a different instance hits the cache too
+        Price third = new Price(new String(note.toCharArray()), null);
+        assertEquals(count, lookups);
+        assertEquals(1.75, third.getPrice());
+        assertEquals(2, third.getCurrencyId());
+    }
+}
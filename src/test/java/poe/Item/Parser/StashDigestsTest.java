@@ -0,0 +1,200 @@
+package poe.Item.Parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class StashDigestsTest {
+    private static final long stash = 0xfedcba98L;
+
+    private final StashDigests digests = new StashDigests(100);
+
+    private static DbItemEntry entry(int id_d, long item_crc, Double price, Integer id_price, Integer stackSize) {
+        DbItemEntry entry = new DbItemEntry(1, id_d, stash, item_crc, stackSize, null, null);
+        entry.price = price;
+        entry.id_price = id_price;
+        return entry;
+    }
+
+    private static List<DbItemEntry> stash(DbItemEntry... entries) {
+        return new ArrayList<>(Arrays.asList(entries));
+    }
+
+    @Test
+    void firstSightingTest() {
+        assertNull(digests.update(stash, stash(entry(1, 10, 5d, null, null))));
+
+        // Other stashes have their own digests
+        assertNull(digests.update(stash + 1, stash(entry(1, 10, 5d, null, null))));
+        assertNotNull(digests.update(stash, stash(entry(1, 10, 5d, null, null))));
+    }
+
+    @Test
+    void unchangedTest() {
+        digests.update(stash, stash(entry(1, 10, 5d, null, null), entry(2, 20, null, null, 3)));
+
+        // Same listings in a different order
+        StashDigests.Diff diff = digests.update(stash,
+                stash(entry(2, 20, null, null, 3), entry(1, 10, 5d, null, null)));
+
+        assertTrue(diff.changed.isEmpty());
+        assertTrue(diff.removed.isEmpty());
+    }
+
+    @Test
+    void changedTest() {
+        digests.update(stash, stash(
+                entry(1, 10, 5d, null, null),
+                entry(2, 20, 5d, null, null),
+                entry(3, 30, null, null, 3),
+                entry(4, 40, 5d, 2, null)
+        ));
+
+        DbItemEntry price = entry(1, 10, 6d, null, null);
+        DbItemEntry unpriced = entry(2, 20, null, null, null);
+        DbItemEntry stack = entry(3, 30, null, null, 4);
+        DbItemEntry currency = entry(4, 40, 5d, 3, null);
+        DbItemEntry added = entry(5, 50, null, null, null);
+
+        StashDigests.Diff diff = digests.update(stash, stash(currency, added, stack, unpriced, price));
+
+        assertEquals(Arrays.asList(price, unpriced, stack, currency, added), diff.changed);
+        assertTrue(diff.removed.isEmpty());
+    }
+
+    @Test
+    void removedTest() {
+        digests.update(stash, stash(
+                entry(1, 10, 5d, null, null),
+                entry(2, 0xffffffffL, 5d, null, null),
+                entry(3, 30, 5d, null, null)
+        ));
+
+        StashDigests.Diff diff = digests.update(stash, stash(entry(3, 30, 5d, null, null)));
+
+        assertTrue(diff.changed.isEmpty());
+        assertEquals(2, diff.removed.size());
+
+        // References carry the full unsigned item crc
+        DbItemReference first = diff.removed.get(0), second = diff.removed.get(1);
+        assertEquals(1, first.id_d);
+        assertEquals(10, first.item_crc);
+        assertEquals(stash, first.stash_crc);
+        assertEquals(2, second.id_d);
+        assertEquals(0xffffffffL, second.item_crc);
+        assertEquals(stash, second.stash_crc);
+
+        // Emptied stash
+        diff = digests.update(stash, stash());
+        assertEquals(1, diff.removed.size());
+        assertEquals(3, diff.removed.get(0).id_d);
+    }
+
+    @Test
+    void duplicateTest() {
+        DbItemEntry first = entry(1, 10, 5d, null, null);
+        DbItemEntry second = entry(1, 10, 5d, null, null);
+
+        digests.update(stash, stash(first, second));
+        StashDigests.Diff diff = digests.update(stash, stash(first, second));
+
+        // Only one of the two equal keys can be matched against the digest, the other is passed on
+        assertEquals(1, diff.changed.size());
+        assertTrue(diff.removed.isEmpty());
+
+        // A key that only appears once more than before is passed on as well
+        DbItemEntry third = entry(1, 10, 5d, null, null);
+        diff = digests.update(stash, stash(first, second, third));
+        assertEquals(2, diff.changed.size());
+
+        // Dropping a copy doesn't remove the listing that is still there
+        diff = digests.update(stash, stash(first));
+        assertTrue(diff.changed.isEmpty());
+        assertTrue(diff.removed.isEmpty());
+
+        diff = digests.update(stash, stash(entry(2, 20, null, null, null)));
+        assertEquals(1, diff.removed.size());
+    }
+
+    @Test
+    void invalidateTest() {
+        digests.update(stash, stash(entry(1, 10, 5d, null, null)));
+        digests.invalidate(stash);
+
+        assertNull(digests.update(stash, stash(entry(1, 10, 5d, null, null))));
+    }
+
+    @Test
+    void sequentialUploadTest() {
+        assertTrue(digests.begin(stash));
+        digests.update(stash, stash(entry(1, 10, 5d, null, null)));
+        digests.end(stash);
+
+        assertTrue(digests.begin(stash));
+        assertNotNull(digests.update(stash, stash(entry(1, 10, 6d, null, null))));
+        digests.end(stash);
+
+        // Uploads that don't overlap keep the digest
+        assertNotNull(digests.update(stash, stash(entry(1, 10, 6d, null, null))));
+    }
+
+    @Test
+    void interleavedUploadTest() {
+        // The first upload diffs and replaces the digest, then starts writing
+        assertTrue(digests.begin(stash));
+        digests.update(stash, stash(entry(1, 10, 5d, null, null)));
+
+        // A second reply with the same stash arrives before the writes of the first have finished
+        assertFalse(digests.begin(stash));
+
+        // Uploads of other stashes are unaffected
+        assertTrue(digests.begin(stash + 1));
+        digests.end(stash + 1);
+
+        // Either of the two may have been written last, so the digest is dropped once both have ended
+        digests.end(stash);
+        assertTrue(digests.begin(stash + 2));
+        digests.end(stash + 2);
+        digests.end(stash);
+
+        assertNull(digests.update(stash, stash(entry(1, 10, 5d, null, null))));
+
+        // And the next upload is not treated as overlapping
+        assertTrue(digests.begin(stash));
+        digests.end(stash);
+        assertNotNull(digests.update(stash, stash(entry(1, 10, 5d, null, null))));
+    }
+
+    @Test
+    void interleavedEndOrderTest() {
+        // The overlapping upload may also end before the one that started first
+        assertTrue(digests.begin(stash));
+        digests.update(stash, stash(entry(1, 10, 5d, null, null)));
+        assertFalse(digests.begin(stash));
+
+        // The overlapping upload writes in full without touching the digest
+        digests.end(stash);
+        assertNotNull(digests.update(stash, stash(entry(1, 10, 5d, null, null))));
+        digests.end(stash);
+
+        assertNull(digests.update(stash, stash(entry(1, 10, 6d, null, null))));
+    }
+
+    @Test
+    void evictionTest() {
+        StashDigests small = new StashDigests(2);
+
+        small.update(1, stash());
+        small.update(2, stash());
+        small.update(1, stash());
+        small.update(3, stash());
+
+        // The least recently updated stash is forgotten first
+        assertNull(small.update(2, stash()));
+        assertNotNull(small.update(3, stash()));
+    }
+}
@@ -0,0 +1,130 @@
+package poe.Worker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class ChangeIdScannerTest {
+    private static final String reply = "{\"next_change_id\": \"447812-463127-437128-502091-476011\",\"stashes\":[]}";
+    private static final String expected = "447812-463127-437128-502091-476011";
+
+    private final List<String> found = new ArrayList<>();
+    private final ChangeIdScanner scanner = new ChangeIdScanner(found::add);
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void singleChunkTest() {
+        byte[] b = bytes(reply);
+        scanner.update(b, 0, b.length);
+
+        assertEquals(expected, scanner.getChangeId());
+        assertEquals(List.of(expected), found);
+    }
+
+    @Test
+    void chunkBoundaryTest() {
+        byte[] b = bytes(reply);
+
+        // Split the reply in two at every possible position, so that each token gets cut at least once
+        for (int split = 0; split <= b.length; split++) {
+            found.clear();
+            scanner.reset();
+
+            scanner.update(b, 0, split);
+            scanner.update(b, split, b.length - split);
+
+            assertEquals(expected, scanner.getChangeId(), "Split at " + split);
+            assertEquals(1, found.size(), "Split at " + split);
+        }
+    }
+
+    @Test
+    void byteByByteTest() {
+        byte[] b = bytes(reply);
+
+        for (int i = 0; i < b.length; i++) {
+            scanner.update(b[i]);
+
+            // The callback fires right after the closing quote of the id and not before
+            boolean closed = i >= reply.indexOf(expected) + expected.length();
+            assertEquals(closed, scanner.getChangeId() != null, "Byte " + i);
+        }
+
+        assertEquals(List.of(expected), found);
+    }
+
+    @Test
+    void offsetTest() {
+        // Only the given range of the buffer is scanned
+        byte[] b = bytes("xxx" + reply + "\"next_change_id\":\"1-1\"");
+        scanner.update(b, 3, reply.length());
+
+        assertEquals(expected, scanner.getChangeId());
+    }
+
+    @Test
+    void escapedQuoteTest() {
+        // A field name inside a string value has escaped quotes and must not match
+        String value = "{\"note\":\"\\\"next_change_id\\\":\\\"1-2-3\\\"\",\"next_change_id\":\"4-5-6\"}";
+        byte[] b = bytes(value);
+        scanner.update(b, 0, b.length);
+
+        assertEquals("4-5-6", scanner.getChangeId());
+        assertEquals(List.of("4-5-6"), found);
+    }
+
+    @Test
+    void partialMatchTest() {
+        // The byte that breaks a partial match can start the real one
+        String value = "{\"\"next_change\"next_change_id\" \n:\t\"7-8-9\"}";
+        byte[] b = bytes(value);
+        scanner.update(b, 0, b.length);
+
+        assertEquals("7-8-9", scanner.getChangeId());
+    }
+
+    @Test
+    void invalidIdTest() {
+        // Ids are made of digits and dashes and can't be empty
+        for (String value : new String[]{
+                "{\"next_change_id\":\"\"}",
+                "{\"next_change_id\":\"12a-34\"}",
+                "{\"next_change_id\":12}",
+                "{\"next_change_id\":\"" + new String(new char[65]).replace('\0', '1') + "\"}",
+                "{\"next_change_id\"\"1-2\"}"
+        }) {
+            scanner.reset();
+            byte[] b = bytes(value);
+            scanner.update(b, 0, b.length);
+
+            assertNull(scanner.getChangeId(), value);
+        }
+
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    void resetTest() {
+        byte[] b = bytes(reply);
+        scanner.update(b, 0, b.length);
+
+        // Later bytes are ignored once the id has been found
+        byte[] other = bytes("\"next_change_id\":\"1-1\"");
+        scanner.update(other, 0, other.length);
+        assertEquals(expected, scanner.getChangeId());
+
+        scanner.reset();
+        assertNull(scanner.getChangeId());
+
+        scanner.update(other, 0, other.length);
+        assertEquals("1-1", scanner.getChangeId());
+        assertEquals(List.of(expected, "1-1"), found);
+    }
+}
@@ -0,0 +1,103 @@
+package poe.Worker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class JobExchangerTest {
+    private final JobExchanger exchanger = new JobExchanger();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void offerTakeTest() {
+        exchanger.offer("100-200-300");
+        assertEquals("100-200-300", exchanger.take(() -> true));
+
+        // The slot is empty after a take
+        assertNull(exchanger.take(() -> false));
+    }
+
+    @Test
+    void newestWinsTest() {
+        exchanger.offer("1-2-3");
+        exchanger.offer("1-2-5");
+        exchanger.offer("1-2-4");
+        assertEquals("1-2-5", exchanger.take(() -> false));
+
+        // Only the last component is compared
+        exchanger.offer("9-9-3");
+        exchanger.offer("1-1-10");
+        assertEquals("1-1-10", exchanger.take(() -> false));
+    }
+
+    @Test
+    void blockingTakeTest() throws Exception {
+        Future<String> taken = executor.submit(() -> exchanger.take(() -> true));
+
+        // Nothing to take yet
+        assertThrows(TimeoutException.class, () -> taken.get(100, TimeUnit.MILLISECONDS));
+
+        exchanger.offer("1-2-3");
+        assertEquals("1-2-3", taken.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void wakeAllTest() throws Exception {
+        AtomicBoolean waiting = new AtomicBoolean(true);
+        List<Future<String>> taken = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            taken.add(executor.submit(() -> exchanger.take(waiting::get)));
+        }
+
+        assertThrows(TimeoutException.class, () -> taken.get(0).get(100, TimeUnit.MILLISECONDS));
+
+        // Waiting workers recheck their state and give up
+        waiting.set(false);
+        exchanger.wakeAll();
+
+        for (Future<String> future : taken) {
+            assertNull(future.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void singleHandOffTest() throws Exception {
+        AtomicBoolean waiting = new AtomicBoolean(true);
+        List<Future<String>> taken = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            taken.add(executor.submit(() -> exchanger.take(waiting::get)));
+        }
+
+        // Exactly one of the waiting workers gets the id
+        exchanger.offer("1-2-3");
+        Thread.sleep(100);
+
+        waiting.set(false);
+        exchanger.wakeAll();
+
+        int count = 0;
+        for (Future<String> future : taken) {
+            String changeId = future.get(5, TimeUnit.SECONDS);
+
+            if (changeId != null) {
+                assertEquals("1-2-3", changeId);
+                count++;
+            }
+        }
+
+        assertEquals(1, count);
+    }
+}
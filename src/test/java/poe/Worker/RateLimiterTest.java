@@ -0,0 +1,190 @@
+package poe.Worker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+import poe.Database.Database;
+import poe.Database.Modules.Stats;
+import poe.Statistics.Collector;
+import poe.Statistics.StatType;
+import poe.Statistics.StatisticsManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RateLimiterTest {
+    private static final long second = TimeUnit.SECONDS.toNanos(1);
+    // Allowed difference between an expected and an actual wait, covering the time between calls
+    private static final long slack = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final AtomicInteger penalties = new AtomicInteger();
+    private final Map<String, String> headers = new HashMap<>();
+
+    /**
+     * Creates a limiter that starts out at one request per second
+     *
+     * @param burst Value of worker.rateLimitBurst
+     */
+    private RateLimiter limiter(int burst) {
+        Config config = ConfigFactory.parseString("worker { downloadDelay = 1000, rateLimitMargin = 1, "
+                + "rateLimitBurst = " + burst + ", lockTimeout = 5000 }");
+
+        // Statistics without a database, counting only the penalties
+        Database database = new Database(config);
+        database.stats = new Stats(database) {
+            @Override
+            public boolean getTmpStatistics(Collector[] collectors) {
+                return true;
+            }
+
+            @Override
+            public boolean deleteTmpStatistics(Set<Collector> collectors) {
+                return true;
+            }
+
+            @Override
+            public boolean uploadStatistics(Set<Collector> collectors) {
+                return true;
+            }
+        };
+
+        StatisticsManager sm = new StatisticsManager(database) {
+            @Override
+            public void addValue(StatType type, Integer val) {
+                if (type == StatType.COUNT_RATE_LIMIT_PENALTIES) {
+                    penalties.incrementAndGet();
+                }
+            }
+        };
+
+        return new RateLimiter(config, sm);
+    }
+
+    private static void assertWait(long expected, long actual) {
+        assertTrue(actual <= expected && actual > expected - slack,
+                String.format("Expected a wait of %d ms, was %d ms", expected / 1000000, actual / 1000000));
+    }
+
+    @Test
+    void reserveTest() {
+        RateLimiter limiter = limiter(1);
+
+        // Each request takes the next free slot
+        assertWait(0, limiter.reserve());
+        assertWait(second, limiter.reserve());
+        assertWait(2 * second, limiter.reserve());
+    }
+
+    @Test
+    void concurrentReserveTest() throws Exception {
+        RateLimiter limiter = limiter(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // No slot is handed out twice
+        for (int i = 0; i < 800; i++) {
+            executor.execute(limiter::reserve);
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertWait(800 * second, limiter.reserve());
+    }
+
+    @Test
+    void burstTest() {
+        RateLimiter limiter = limiter(3);
+
+        headers.put("X-Rate-Limit-Rules", "ip");
+        headers.put("X-Rate-Limit-ip", "10:10:60");
+        limiter.update(headers::get, 200);
+
+        // Up to three requests may go right away, after which the sustained rate applies
+        assertWait(0, limiter.reserve());
+        assertWait(0, limiter.reserve());
+        assertWait(0, limiter.reserve());
+        assertWait(second, limiter.reserve());
+        assertWait(2 * second, limiter.reserve());
+    }
+
+    @Test
+    void strictestRuleTest() {
+        // The strict rule decides the rate no matter where it's listed
+        for (String rules : new String[]{"account,ip", "ip,account"}) {
+            RateLimiter limiter = limiter(1);
+
+            headers.put("X-Rate-Limit-Rules", rules);
+            headers.put("X-Rate-Limit-ip", "45:60:60,240:240:900");
+            headers.put("X-Rate-Limit-account", "5:10:60");
+            limiter.update(headers::get, 200);
+
+            assertWait(0, limiter.reserve());
+            assertWait(2 * second, limiter.reserve());
+        }
+    }
+
+    @Test
+    void retryAfterTest() {
+        RateLimiter limiter = limiter(1);
+
+        headers.put("Retry-After", "30");
+        limiter.update(headers::get, 429);
+
+        assertEquals(1, penalties.get());
+        assertWait(30 * second, limiter.reserve());
+        assertWait(31 * second, limiter.reserve());
+    }
+
+    @Test
+    void defaultPenaltyTest() {
+        RateLimiter limiter = limiter(1);
+
+        // Without a Retry-After header the lock timeout is used
+        limiter.update(headers::get, 429);
+
+        assertEquals(1, penalties.get());
+        assertWait(5 * second, limiter.reserve());
+    }
+
+    @Test
+    void statePenaltyTest() {
+        RateLimiter limiter = limiter(1);
+
+        headers.put("X-Rate-Limit-Rules", "ip");
+        headers.put("X-Rate-Limit-ip", "10:10:60");
+        headers.put("X-Rate-Limit-ip-State", "11:10:60,20:240:0");
+        limiter.update(headers::get, 200);
+
+        assertEquals(1, penalties.get());
+        assertWait(60 * second, limiter.reserve());
+    }
+
+    @Test
+    void overlappingPenaltyTest() {
+        RateLimiter limiter = limiter(1);
+
+        headers.put("Retry-After", "30");
+        limiter.update(headers::get, 429);
+
+        // A shorter penalty within a longer one changes nothing
+        headers.put("Retry-After", "10");
+        limiter.update(headers::get, 429);
+
+        assertEquals(1, penalties.get());
+        assertWait(30 * second, limiter.reserve());
+
+        // A longer one extends it
+        headers.put("Retry-After", "60");
+        limiter.update(headers::get, 429);
+
+        assertEquals(2, penalties.get());
+        assertWait(60 * second, limiter.reserve());
+    }
+}
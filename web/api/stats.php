@@ -66,16 +66,29 @@ $types = array(
   "time" => array(
     "TIME_API_REPLY_DOWNLOAD",
     "TIME_PARSE_REPLY",
-    "TIME_API_TTFB"
+    "TIME_UPLOAD_REPLY",
+    "TIME_API_TTFB",
+    "TIME_RATE_LIMIT_WAIT",
+    "TIME_NEWEST_REPLY_AGE"
   ),
 
   "count" => array(
     "COUNT_API_CALLS",
     "COUNT_REPLY_SIZE",
+    "COUNT_REPLY_WIRE_SIZE",
     "COUNT_TOTAL_STASHES",
     "COUNT_TOTAL_ITEMS",
     "COUNT_ACCEPTED_ITEMS",
-    "COUNT_ACTIVE_ACCOUNTS"
+    "COUNT_CACHED_ITEMS",
+    "COUNT_UPLOADED_ITEMS",
+    "COUNT_ACTIVE_ACCOUNTS",
+    "COUNT_QUEUE_DECODE",
+    "COUNT_QUEUE_PARSE",
+    "COUNT_QUEUE_UPLOAD",
+    "COUNT_RIVER_LAG",
+    "COUNT_RIVER_ADVANCE_RATE",
+    "COUNT_RIVER_HEAD_RATE",
+    "COUNT_REPLIES_PER_MINUTE"
   ),
 
   "error" => array(
@@ -84,7 +97,8 @@ $types = array(
     "COUNT_API_ERRORS_CONNECTION_RESET",
     "COUNT_API_ERRORS_5XX",
     "COUNT_API_ERRORS_4XX",
-    "COUNT_API_ERRORS_DUPLICATE"
+    "COUNT_API_ERRORS_DUPLICATE",
+    "COUNT_RATE_LIMIT_PENALTIES"
   ),
 );
 
@@ -1245,11 +1245,26 @@ class StatsPage {
                 name: 'Accepted items',
                 description: 'Nr of items listed per hour that have been accepted for price calculation',
                 unit: null
+              }, {
+                type: 'COUNT_CACHED_ITEMS',
+                name: 'Cached items',
+                description: 'Nr of accepted items per hour that were unchanged since last seen and not parsed again',
+                unit: null
+              }, {
+                type: 'COUNT_UPLOADED_ITEMS',
+                name: 'Uploaded items',
+                description: 'Nr of accepted items per hour that were new or changed and written to the database',
+                unit: null
               }, {
                 type: 'COUNT_REPLY_SIZE',
                 name: 'API reply size',
                 description: 'Stash API reply size in bytes',
                 unit: null
+              }, {
+                type: 'COUNT_REPLY_WIRE_SIZE',
+                name: 'API reply wire size',
+                description: 'Stash API reply size in bytes as transferred, before decompression',
+                unit: null
               }
             ]
           }, {
@@ -1279,6 +1294,53 @@ class StatsPage {
                 unit: null
               }
             ]
+          }, {
+            name: 'Group 4',
+            type: 'line',
+            members: [
+              {
+                type: 'COUNT_QUEUE_DECODE',
+                name: 'Decode queue',
+                description: 'Avg nr of replies waiting to be decoded',
+                unit: null
+              }, {
+                type: 'COUNT_QUEUE_PARSE',
+                name: 'Parse queue',
+                description: 'Avg nr of replies waiting to be parsed',
+                unit: null
+              }, {
+                type: 'COUNT_QUEUE_UPLOAD',
+                name: 'Upload queue',
+                description: 'Avg nr of replies waiting to be uploaded to the database',
+                unit: null
+              }
+            ]
+          }, {
+            name: 'Group 5',
+            type: 'line',
+            members: [
+              {
+                type: 'COUNT_RIVER_LAG',
+                name: 'River lag',
+                description: 'Estimated nr of changes the workers are behind the head of the river',
+                unit: null
+              }, {
+                type: 'COUNT_RIVER_ADVANCE_RATE',
+                name: 'Advance rate',
+                description: 'Nr of changes per minute the workers advanced through the river',
+                unit: null
+              }, {
+                type: 'COUNT_RIVER_HEAD_RATE',
+                name: 'Head rate',
+                description: 'Estimated nr of changes per minute at the head of the river',
+                unit: null
+              }, {
+                type: 'COUNT_REPLIES_PER_MINUTE',
+                name: 'Replies per minute',
+                description: 'Nr of stash API replies received per minute',
+                unit: null
+              }
+            ]
           }
         ],
       }, {
@@ -1318,6 +1380,11 @@ class StatsPage {
                 name: 'Duplicate requests',
                 description: 'Nr of duplicate requests in the past hour (higher means closer to the peak of the river)',
                 unit: null
+              }, {
+                type: 'COUNT_RATE_LIMIT_PENALTIES',
+                name: 'Rate limit penalties',
+                description: 'Nr of times the API told us to back off in the past hour',
+                unit: null
               }
             ]
           }
@@ -1339,11 +1406,26 @@ class StatsPage {
                 name: 'API process',
                 description: 'Stash API reply processing time in milliseconds',
                 unit: 'ms'
+              }, {
+                type: 'TIME_UPLOAD_REPLY',
+                name: 'DB upload',
+                description: 'Time spent uploading a processed reply to the database in milliseconds',
+                unit: 'ms'
               }, {
                 type: 'TIME_API_TTFB',
                 name: 'TTFB',
                 description: 'Stash API reply TTFB in milliseconds',
                 unit: 'ms'
+              }, {
+                type: 'TIME_RATE_LIMIT_WAIT',
+                name: 'Rate limit wait',
+                description: 'Time workers waited for the rate limiter before a request in milliseconds',
+                unit: 'ms'
+              }, {
+                type: 'TIME_NEWEST_REPLY_AGE',
+                name: 'Newest reply age',
+                description: 'Time since the newest reply finished processing in milliseconds',
+                unit: 'ms'
               }
             ]
           }